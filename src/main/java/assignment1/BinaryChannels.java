@@ -0,0 +1,179 @@
+package assignment1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Static helpers writing primitive arrays to a {@link FileChannel} through a direct buffer
+ * and reading them back through memory-mapped regions. All values are little-endian.
+ *
+ * @author Alex Ilyenko
+ * @see Percolation#save(java.nio.file.Path)
+ * @see Percolation#restore(java.nio.file.Path)
+ */
+final class BinaryChannels {
+    /**
+     * Byte order of all values
+     */
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    /**
+     * Size of the direct buffer used for writing
+     */
+    static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * Maximal number of bytes mapped at once
+     */
+    private static final int MAX_MAPPED_BYTES = 1 << 30;
+
+    /**
+     * Private constructor, this class has only static methods
+     */
+    private BinaryChannels() {
+    }
+
+    /**
+     * Allocates direct buffer for writing
+     *
+     * @return new direct {@code ByteBuffer} with little-endian order
+     */
+    static ByteBuffer allocateBuffer() {
+        return ByteBuffer.allocateDirect(BUFFER_SIZE).order(ORDER);
+    }
+
+    /**
+     * Writes first {@code length} elements of the array
+     *
+     * @param channel channel to write to
+     * @param buffer  direct buffer used for writing
+     * @param array   array to write
+     * @param length  number of elements to write
+     * @throws IOException if writing fails
+     */
+    static void writeInts(FileChannel channel, ByteBuffer buffer, int[] array, int length) throws IOException {
+        for (int offset = 0; offset < length; ) {
+            int count = Math.min(length - offset, buffer.capacity() / Integer.BYTES);
+            buffer.clear();
+            buffer.asIntBuffer().put(array, offset, count);
+            buffer.limit(count * Integer.BYTES);
+            write(channel, buffer);
+            offset += count;
+        }
+    }
+
+    /**
+     * Writes all elements of the array
+     *
+     * @param channel channel to write to
+     * @param buffer  direct buffer used for writing
+     * @param array   array to write
+     * @throws IOException if writing fails
+     */
+    static void writeLongs(FileChannel channel, ByteBuffer buffer, long[] array) throws IOException {
+        for (int offset = 0; offset < array.length; ) {
+            int count = Math.min(array.length - offset, buffer.capacity() / Long.BYTES);
+            buffer.clear();
+            buffer.asLongBuffer().put(array, offset, count);
+            buffer.limit(count * Long.BYTES);
+            write(channel, buffer);
+            offset += count;
+        }
+    }
+
+    /**
+     * Writes all elements of the array
+     *
+     * @param channel channel to write to
+     * @param buffer  direct buffer used for writing
+     * @param array   array to write
+     * @throws IOException if writing fails
+     */
+    static void writeBytes(FileChannel channel, ByteBuffer buffer, byte[] array) throws IOException {
+        for (int offset = 0; offset < array.length; ) {
+            int count = Math.min(array.length - offset, buffer.capacity());
+            buffer.clear();
+            buffer.put(array, offset, count);
+            buffer.flip();
+            write(channel, buffer);
+            offset += count;
+        }
+    }
+
+    /**
+     * Reads {@code length} elements into the array from the mapped region of the file
+     *
+     * @param channel  channel to read from
+     * @param position offset of the first element in bytes
+     * @param array    array to read into
+     * @param length   number of elements to read
+     * @return offset following the last element
+     * @throws IOException if mapping fails
+     */
+    static long readInts(FileChannel channel, long position, int[] array, int length) throws IOException {
+        for (int offset = 0; offset < length; ) {
+            int count = Math.min(length - offset, MAX_MAPPED_BYTES / Integer.BYTES);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * Integer.BYTES)
+                    .order(ORDER)
+                    .asIntBuffer()
+                    .get(array, offset, count);
+            position += (long) count * Integer.BYTES;
+            offset += count;
+        }
+        return position;
+    }
+
+    /**
+     * Reads all elements of the array from the mapped region of the file
+     *
+     * @param channel  channel to read from
+     * @param position offset of the first element in bytes
+     * @param array    array to read into
+     * @return offset following the last element
+     * @throws IOException if mapping fails
+     */
+    static long readLongs(FileChannel channel, long position, long[] array) throws IOException {
+        for (int offset = 0; offset < array.length; ) {
+            int count = Math.min(array.length - offset, MAX_MAPPED_BYTES / Long.BYTES);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * Long.BYTES)
+                    .order(ORDER)
+                    .asLongBuffer()
+                    .get(array, offset, count);
+            position += (long) count * Long.BYTES;
+            offset += count;
+        }
+        return position;
+    }
+
+    /**
+     * Reads all elements of the array from the mapped region of the file
+     *
+     * @param channel  channel to read from
+     * @param position offset of the first element in bytes
+     * @param array    array to read into
+     * @return offset following the last element
+     * @throws IOException if mapping fails
+     */
+    static long readBytes(FileChannel channel, long position, byte[] array) throws IOException {
+        for (int offset = 0; offset < array.length; ) {
+            int count = Math.min(array.length - offset, MAX_MAPPED_BYTES);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, count).get(array, offset, count);
+            position += count;
+            offset += count;
+        }
+        return position;
+    }
+
+    /**
+     * Writes all remaining bytes of the buffer
+     *
+     * @param channel channel to write to
+     * @param buffer  buffer to write
+     * @throws IOException if writing fails
+     */
+    static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package assignment1;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Thread-safe variant of {@link Percolation}: any number of threads can call
+ * {@link #open(int, int)}, {@link #isFull(int, int)} and {@link #percolates()} concurrently
+ * without locks. It is based on lock-free union-find: roots are linked with CAS in the order of
+ * random priorities, which keeps trees shallow without union by size, and paths are halved with CAS.
+ * <p>
+ * Every site has state word holding open bit and top/bottom flags. Flags of the linked root are
+ * OR-ed into the new root, and if that root gets linked meanwhile they are pushed further up,
+ * so once all {@code open} calls return, every root holds flags of its whole component.
+ * While {@code open} calls are in progress {@code isFull} may lag behind the last unions.
+ *
+ * @author Alex Ilyenko
+ * @see Percolation
+ * @see AtomicIntegerArray
+ */
+public class ConcurrentPercolation {
+    /**
+     * Bit marking opened site
+     */
+    private static final int OPEN = 1;
+    /**
+     * Flag marking component which contains at least one site of the top row
+     */
+    private static final int TOP = 2;
+    /**
+     * Flag marking component which contains at least one site of the bottom row
+     */
+    private static final int BOTTOM = 4;
+    /**
+     * Both top and bottom flags
+     */
+    private static final int SPANNING = TOP | BOTTOM;
+    /**
+     * Parent links of all sites, roots are linked to themselves
+     */
+    private final AtomicIntegerArray parent;
+    /**
+     * State words of all sites holding {@link #OPEN} bit, {@link #TOP} and {@link #BOTTOM} flags.
+     * Flags are meaningful only for roots
+     */
+    private final AtomicIntegerArray state;
+    /**
+     * Random seed of linking priorities
+     */
+    private final int seed;
+    /**
+     * {@code int} variable representing the grid's side length
+     */
+    private final int N;
+    /**
+     * Latched value showing that some component already touches both top and bottom rows
+     */
+    private volatile boolean percolated;
+
+    /**
+     * Takes {@code int} variable and creates N*N grid
+     * for solving Percolation problem on it
+     *
+     * @param N grid's side length
+     * @throws IllegalArgumentException if N is less or equal to zero or
+     *                                  N*N sites don't fit into an array
+     */
+    public ConcurrentPercolation(int N) {
+        if (N <= 0) {
+            throw new IllegalArgumentException("N should be greater than zero!");
+        }
+        if ((long) N * N > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Grid with " + (long) N * N + " sites is too large!");
+        }
+        this.N = N;
+        int square = N * N;
+        parent = new AtomicIntegerArray(square);
+        state = new AtomicIntegerArray(square);
+        for (int i = 0; i < square; i++) {
+            parent.lazySet(i, i);
+        }
+        seed = new SplittableRandom().nextInt();
+    }
+
+    /**
+     * Shows if the site with given row and column is opened
+     *
+     * @param y row index
+     * @param x column index
+     * @return {@code true} if site is opened,
+     * {@code false} if it's not
+     * @see #validate(int, int)
+     */
+    public boolean isOpen(int y, int x) {
+        validate(x, y);
+        return isOpened(xyTo1D(y, x));
+    }
+
+    /**
+     * Opens the site with given row and column. Only one of the threads
+     * opening the same site concurrently connects it to its neighbours
+     *
+     * @param y row index
+     * @param x column index
+     * @see #validate(int, int)
+     * @see #connectIfIsOpened(int, int)
+     */
+    public void open(int y, int x) {
+        validate(x, y);
+        int index = xyTo1D(y, x);
+        int flag = OPEN;
+        if (y == 1) {
+            flag |= TOP;
+        }
+        if (y == N) {
+            flag |= BOTTOM;
+        }
+        if (!state.compareAndSet(index, 0, flag)) {
+            return;
+        }
+        if ((flag & SPANNING) == SPANNING) {
+            percolated = true;
+        }
+        if (x < N) {
+            connectIfIsOpened(index, index + 1);
+        }
+        if (x > 1) {
+            connectIfIsOpened(index, index - 1);
+        }
+        if (y > 1) {
+            connectIfIsOpened(index, index - N);
+        }
+        if (y < N) {
+            connectIfIsOpened(index, index + N);
+        }
+    }
+
+    /**
+     * Shows if the site with given column and row is full with liquid
+     *
+     * @param y row index
+     * @param x column index
+     * @return {@code true} if site is full,
+     * {@code false} if it's not
+     * @see #find(int)
+     */
+    public boolean isFull(int y, int x) {
+        validate(x, y);
+        int index = xyTo1D(y, x);
+        return isOpened(index) && (state.get(find(index)) & TOP) != 0;
+    }
+
+    /**
+     * Shows if the whole grid percolates
+     *
+     * @return {@code true} if the grid percolates,
+     * {@code false} if it doesn't
+     */
+    public boolean percolates() {
+        return percolated;
+    }
+
+    /**
+     * Connects two sites if the second one is opened. Neighbour which is opened concurrently
+     * either is seen here or sees this site opened and connects them itself
+     *
+     * @param main  index of the site in 1D array
+     * @param other index of the neighbouring site in 1D array
+     * @see #union(int, int)
+     */
+    private void connectIfIsOpened(int main, int other) {
+        if (isOpened(other)) {
+            union(main, other);
+        }
+    }
+
+    /**
+     * Checks the open bit of the site
+     *
+     * @param index index of the site in 1D array
+     * @return {@code true} if site is opened,
+     * {@code false} if it's not
+     */
+    private boolean isOpened(int index) {
+        return (state.get(index) & OPEN) != 0;
+    }
+
+    /**
+     * Returns the root of the component containing given site. Visited sites
+     * are linked to their grandparents with CAS, failed CAS is simply ignored
+     *
+     * @param p index of the site in 1D array
+     * @return index of the root in 1D array
+     */
+    private int find(int p) {
+        while (true) {
+            int parentOfP = parent.get(p);
+            if (parentOfP == p) {
+                return p;
+            }
+            int grandParent = parent.get(parentOfP);
+            if (grandParent != parentOfP) {
+                parent.compareAndSet(p, parentOfP, grandParent);
+            }
+            p = grandParent;
+        }
+    }
+
+    /**
+     * Merges components of two sites: root with lower priority is linked to the other root with CAS,
+     * which is retried if one of the roots was linked by another thread meanwhile
+     *
+     * @param first  index of the first site in 1D array
+     * @param second index of the second site in 1D array
+     * @see #priority(int)
+     * @see #mergeFlags(int, int)
+     */
+    private void union(int first, int second) {
+        while (true) {
+            int firstRoot = find(first);
+            int secondRoot = find(second);
+            if (firstRoot == secondRoot) {
+                return;
+            }
+            if (priority(firstRoot) > priority(secondRoot)) {
+                int swap = firstRoot;
+                firstRoot = secondRoot;
+                secondRoot = swap;
+            }
+            if (parent.compareAndSet(firstRoot, firstRoot, secondRoot)) {
+                mergeFlags(secondRoot, state.get(firstRoot) & SPANNING);
+                return;
+            }
+        }
+    }
+
+    /**
+     * ORs flags into the root and keeps pushing them up while the root turns out
+     * to be linked to another one, so that flags can't be lost by concurrent linking.
+     * Latches {@link #percolated} once some root gets both top and bottom flags
+     *
+     * @param root  index of the root in 1D array
+     * @param flags top/bottom flags to merge
+     */
+    private void mergeFlags(int root, int flags) {
+        while (true) {
+            int current = state.get(root);
+            int merged = current | flags;
+            if (merged != current && !state.compareAndSet(root, current, merged)) {
+                continue;
+            }
+            if ((merged & SPANNING) == SPANNING) {
+                percolated = true;
+            }
+            if (parent.get(root) == root) {
+                return;
+            }
+            flags = merged & SPANNING;
+            root = find(root);
+        }
+    }
+
+    /**
+     * Calculates random linking priority of the site. Mixing function is a bijection,
+     * so different sites always have different priorities
+     *
+     * @param index index of the site in 1D array
+     * @return priority of the site
+     */
+    private int priority(int index) {
+        int h = index ^ seed;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Validates row and column indices of the site
+     *
+     * @param x column index
+     * @param y row index
+     * @throws IndexOutOfBoundsException if one of the indexes less
+     *                                   or equal to zero or more than grid's side size
+     */
+    private void validate(int x, int y) {
+        if (x <= 0 || x > N || y <= 0 || y > N) {
+            throw new IndexOutOfBoundsException("one of the indexes is out of bounds");
+        }
+    }
+
+    /**
+     * Converts 2D array indices of the site to 1D array index
+     *
+     * @param y row index of the site
+     * @param x column index of the site
+     * @return site's index in 1D array
+     */
+    private int xyTo1D(int y, int x) {
+        return N * (y - 1) + x - 1;
+    }
+}
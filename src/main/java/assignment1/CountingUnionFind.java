@@ -0,0 +1,128 @@
+package assignment1;
+
+/**
+ * {@link UnionFind} which counts its own work: number of {@code find} calls,
+ * total number of parent links walked by them and number of merged components.
+ * Counters are plain fields, so unlike its parent this class shouldn't be
+ * shared between threads.
+ *
+ * @author Alex Ilyenko
+ * @see Percolation
+ * @see TrialMetrics
+ */
+final class CountingUnionFind extends UnionFind {
+    /**
+     * Number of {@code find} calls
+     */
+    private long finds;
+    /**
+     * Total number of parent links walked by {@code find} calls
+     */
+    private long pathLength;
+    /**
+     * Number of merged components
+     */
+    private long unions;
+
+    /**
+     * Creates union-find data structure with {@code n} sites,
+     * each of them in its own component
+     *
+     * @param n number of sites
+     * @throws IllegalArgumentException if n is negative
+     */
+    CountingUnionFind(int n) {
+        super(n);
+    }
+
+    /**
+     * Returns the root of the component containing given site
+     * with the same path halving as {@link UnionFind#find(int)}
+     *
+     * @param p site index
+     * @return root of the component
+     */
+    @Override
+    public int find(int p) {
+        int[] parent = parents();
+        int steps = 0;
+        while (p != parent[p]) {
+            int grandParent = parent[parent[p]];
+            parent[p] = grandParent;
+            p = grandParent;
+            steps++;
+        }
+        finds++;
+        pathLength += steps;
+        return p;
+    }
+
+    /**
+     * Returns the root of the component containing given site without changing
+     * any links, the same way as {@link UnionFind#root(int)}
+     *
+     * @param p site index
+     * @return root of the component
+     */
+    @Override
+    int root(int p) {
+        int[] parent = parents();
+        int steps = 0;
+        while (p != parent[p]) {
+            p = parent[p];
+            steps++;
+        }
+        finds++;
+        pathLength += steps;
+        return p;
+    }
+
+    /**
+     * Links roots of two different components by size and counts the merge
+     *
+     * @param rootP root of the first component
+     * @param rootQ root of the second component
+     * @return root of the merged component
+     */
+    @Override
+    int link(int rootP, int rootQ) {
+        unions++;
+        return super.link(rootP, rootQ);
+    }
+
+    /**
+     * Returns number of {@code find} calls since the last reset of counters
+     *
+     * @return {@code long} representing number of finds
+     */
+    long finds() {
+        return finds;
+    }
+
+    /**
+     * Returns total number of parent links walked since the last reset of counters
+     *
+     * @return {@code long} representing total path length
+     */
+    long pathLength() {
+        return pathLength;
+    }
+
+    /**
+     * Returns number of merged components since the last reset of counters
+     *
+     * @return {@code long} representing number of unions
+     */
+    long unions() {
+        return unions;
+    }
+
+    /**
+     * Sets all counters to zero
+     */
+    void resetCounters() {
+        finds = 0;
+        pathLength = 0;
+        unions = 0;
+    }
+}
@@ -0,0 +1,75 @@
+package assignment1;
+
+/**
+ * L-by-L-by-L simple cubic lattice where every site has up to six neighbours.
+ * Site in layer {@code z}, row {@code y} and column {@code x} (all zero based)
+ * has index {@code (z * L + y) * L + x}. The first layer is the top of the lattice
+ * and the last one is its bottom
+ *
+ * @author Alex Ilyenko
+ * @see Lattice
+ */
+public class CubicLattice implements Lattice {
+    /**
+     * {@code int} variable representing the lattice's side length
+     */
+    private final int L;
+    /**
+     * Number of sites in one layer
+     */
+    private final int layer;
+
+    /**
+     * Creates L*L*L cubic lattice
+     *
+     * @param L lattice's side length
+     * @throws IllegalArgumentException if L is less or equal to zero or L*L*L overflows {@code int}
+     */
+    public CubicLattice(int L) {
+        if (L <= 0 || (long) L * L * L > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("L should be greater than zero and L*L*L should fit into int!");
+        }
+        this.L = L;
+        layer = L * L;
+    }
+
+    @Override
+    public int sites() {
+        return layer * L;
+    }
+
+    @Override
+    public int maxDegree() {
+        return 6;
+    }
+
+    @Override
+    public int neighbour(int site, int k) {
+        switch (k) {
+            case 0:
+                return site % L < L - 1 ? site + 1 : NONE;
+            case 1:
+                return site % L > 0 ? site - 1 : NONE;
+            case 2:
+                return site % layer >= L ? site - L : NONE;
+            case 3:
+                return site % layer < layer - L ? site + L : NONE;
+            case 4:
+                return site >= layer ? site - layer : NONE;
+            case 5:
+                return site < layer * (L - 1) ? site + layer : NONE;
+            default:
+                return NONE;
+        }
+    }
+
+    @Override
+    public boolean isTop(int site) {
+        return site < layer;
+    }
+
+    @Override
+    public boolean isBottom(int site) {
+        return site >= layer * (L - 1);
+    }
+}
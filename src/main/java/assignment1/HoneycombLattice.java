@@ -0,0 +1,36 @@
+package assignment1;
+
+/**
+ * N-by-N honeycomb lattice represented as brick wall: every site is connected
+ * to its right and left neighbours and to only one vertical neighbour, the lower one
+ * if {@code x + y} is even and the upper one otherwise, which gives three neighbours in total
+ *
+ * @author Alex Ilyenko
+ * @see SquareLattice
+ */
+public class HoneycombLattice extends SquareLattice {
+
+    /**
+     * Creates N*N honeycomb lattice
+     *
+     * @param N lattice's side length
+     * @throws IllegalArgumentException if N is less or equal to zero or N*N overflows {@code int}
+     */
+    public HoneycombLattice(int N) {
+        super(N);
+    }
+
+    @Override
+    public int maxDegree() {
+        return 3;
+    }
+
+    @Override
+    public int neighbour(int site, int k) {
+        if (k != 2) {
+            return k < 2 ? super.neighbour(site, k) : NONE;
+        }
+        int y = site / N, x = site % N;
+        return super.neighbour(site, (x + y) % 2 == 0 ? 3 : 2);
+    }
+}
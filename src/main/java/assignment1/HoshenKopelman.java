@@ -0,0 +1,317 @@
+package assignment1;
+
+import edu.princeton.cs.introcs.In;
+import edu.princeton.cs.introcs.StdOut;
+
+import java.util.Arrays;
+
+/**
+ * Streaming Hoshen-Kopelman labeler for N-by-N grids whose open/blocked sites are
+ * already known. Rows are read one at a time from top to bottom and only labels of the
+ * last row are kept, so memory is O(N) instead of O(N^2) required by {@link Percolation}.
+ * After every row the labels are compacted, and clusters which don't reach the new row
+ * are counted as finished.
+ *
+ * @author Alex Ilyenko
+ * @see Percolation
+ */
+public class HoshenKopelman {
+    /**
+     * Flag marking cluster which contains at least one site of the top row
+     */
+    private static final byte TOP = 1;
+    /**
+     * Label of the blocked site
+     */
+    private static final int BLOCKED = -1;
+    /**
+     * {@code int} variable representing the grid's side length
+     */
+    private final int N;
+    /**
+     * Labels of the sites of the last read row
+     */
+    private int[] labels;
+    /**
+     * Labels of the sites of the row being read
+     */
+    private int[] nextLabels;
+    /**
+     * Parent links of the labels
+     */
+    private final int[] parent;
+    /**
+     * Number of sites in the cluster of the label, only values for roots are meaningful
+     */
+    private long[] size;
+    /**
+     * Array used to swap with {@link #size} during compaction
+     */
+    private long[] nextSize;
+    /**
+     * Flags of the cluster of the label, only values for roots are meaningful
+     */
+    private byte[] flags;
+    /**
+     * Array used to swap with {@link #flags} during compaction
+     */
+    private byte[] nextFlags;
+    /**
+     * New label of the root after compaction, {@link #BLOCKED} for roots not reaching the last row
+     */
+    private final int[] compacted;
+    /**
+     * Marks roots which are already counted as finished clusters
+     */
+    private final boolean[] finished;
+    /**
+     * Number of labels used by the last read row
+     */
+    private int labelCount;
+    /**
+     * Number of read rows
+     */
+    private int rows;
+    /**
+     * Number of clusters which don't reach the last read row
+     */
+    private long finishedClusters;
+    /**
+     * Number of sites in the largest finished cluster
+     */
+    private long largestFinished;
+
+    /**
+     * Creates labeler for N*N grid
+     *
+     * @param N grid's side length
+     * @throws IllegalArgumentException if N is less or equal to zero
+     */
+    public HoshenKopelman(int N) {
+        if (N <= 0) {
+            throw new IllegalArgumentException("N should be greater than zero!");
+        }
+        this.N = N;
+        int capacity = N + 1;
+        labels = new int[N];
+        nextLabels = new int[N];
+        parent = new int[capacity];
+        size = new long[capacity];
+        nextSize = new long[capacity];
+        flags = new byte[capacity];
+        nextFlags = new byte[capacity];
+        compacted = new int[capacity];
+        finished = new boolean[capacity];
+        Arrays.fill(labels, BLOCKED);
+    }
+
+    /**
+     * Main method that reads the grid from the file and prints whether it percolates
+     * and cluster statistics to console. File starts with N followed by N rows
+     * of N numbers, {@code 1} for open site and {@code 0} for blocked one
+     *
+     * @param args array holding args[0] - name of the file
+     */
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        int N = in.readInt();
+        HoshenKopelman labeler = new HoshenKopelman(N);
+        boolean[] row = new boolean[N];
+        for (int y = 0; y < N; y++) {
+            for (int x = 0; x < N; x++) {
+                row[x] = in.readInt() != 0;
+            }
+            labeler.addRow(row);
+        }
+        StdOut.printf("percolates\t\t= %b\nclusters\t\t= %d\nlargest cluster\t= %d\n",
+                labeler.percolates(), labeler.numberOfClusters(), labeler.largestClusterSize());
+    }
+
+    /**
+     * Reads next row of the grid
+     *
+     * @param row {@code boolean} array where {@code true} marks open site
+     * @throws IllegalArgumentException if row length isn't equal to N
+     * @throws IllegalStateException    if all N rows are already read
+     */
+    public void addRow(boolean[] row) {
+        if (row.length != N) {
+            throw new IllegalArgumentException("Row should have exactly " + N + " sites!");
+        }
+        if (rows == N) {
+            throw new IllegalStateException("All rows are already read!");
+        }
+        int count = labelCount;
+        for (int x = 0; x < N; x++) {
+            if (!row[x]) {
+                nextLabels[x] = BLOCKED;
+                continue;
+            }
+            int up = labels[x];
+            int left = x > 0 ? nextLabels[x - 1] : BLOCKED;
+            int label;
+            if (up == BLOCKED && left == BLOCKED) {
+                label = count++;
+                parent[label] = label;
+                size[label] = 0;
+                flags[label] = rows == 0 ? TOP : 0;
+            } else if (up == BLOCKED) {
+                label = find(left);
+            } else if (left == BLOCKED) {
+                label = find(up);
+            } else {
+                label = union(left, up);
+            }
+            size[label]++;
+            nextLabels[x] = label;
+        }
+        compact(count);
+        rows++;
+    }
+
+    /**
+     * Shows if all N rows are already read
+     *
+     * @return {@code true} if the grid is complete,
+     * {@code false} if there are rows left
+     */
+    public boolean isComplete() {
+        return rows == N;
+    }
+
+    /**
+     * Shows if the grid percolates
+     *
+     * @return {@code true} if all rows are read and some cluster
+     * of the bottom row touches the top row, {@code false} otherwise
+     */
+    public boolean percolates() {
+        if (!isComplete()) {
+            return false;
+        }
+        for (int label = 0; label < labelCount; label++) {
+            if (flags[label] == TOP) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns number of clusters in read rows
+     *
+     * @return {@code long} representing number of clusters
+     */
+    public long numberOfClusters() {
+        return finishedClusters + labelCount;
+    }
+
+    /**
+     * Returns number of sites in the largest cluster of read rows
+     *
+     * @return size of the largest cluster, {@code 0} if there are no open sites
+     */
+    public long largestClusterSize() {
+        long largest = largestFinished;
+        for (int label = 0; label < labelCount; label++) {
+            largest = Math.max(largest, size[label]);
+        }
+        return largest;
+    }
+
+    /**
+     * Returns cluster labels of the last read row. Labels are consistent only inside of the row:
+     * sites with the same label are connected through read rows, different labels still can be
+     * connected through rows below, and labels are renumbered after every row
+     *
+     * @return copy of labels, {@code -1} for blocked sites
+     */
+    public int[] rowLabels() {
+        return labels.clone();
+    }
+
+    /**
+     * Counts clusters which don't reach the row being read as finished and renumbers
+     * clusters of this row to {@code 0..labelCount-1}
+     *
+     * @param count number of labels used while reading the row
+     */
+    private void compact(int count) {
+        Arrays.fill(compacted, 0, count, BLOCKED);
+        int next = 0;
+        for (int x = 0; x < N; x++) {
+            int label = nextLabels[x];
+            if (label == BLOCKED) {
+                continue;
+            }
+            int root = find(label);
+            if (compacted[root] == BLOCKED) {
+                compacted[root] = next;
+                nextSize[next] = size[root];
+                nextFlags[next] = flags[root];
+                next++;
+            }
+            nextLabels[x] = compacted[root];
+        }
+        for (int label = 0; label < labelCount; label++) {
+            int root = find(label);
+            if (compacted[root] == BLOCKED && !finished[root]) {
+                finished[root] = true;
+                finishedClusters++;
+                largestFinished = Math.max(largestFinished, size[root]);
+            }
+        }
+        Arrays.fill(finished, 0, count, false);
+        for (int label = 0; label < next; label++) {
+            parent[label] = label;
+        }
+        int[] swapLabels = labels;
+        labels = nextLabels;
+        nextLabels = swapLabels;
+        long[] swapSize = size;
+        size = nextSize;
+        nextSize = swapSize;
+        byte[] swapFlags = flags;
+        flags = nextFlags;
+        nextFlags = swapFlags;
+        labelCount = next;
+    }
+
+    /**
+     * Returns the root label, halving the path on the way up
+     *
+     * @param label label of the site
+     * @return root label
+     */
+    private int find(int label) {
+        while (label != parent[label]) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+
+    /**
+     * Merges clusters of two labels by size together with their flags
+     *
+     * @param first  first label
+     * @param second second label
+     * @return root label of the merged cluster
+     */
+    private int union(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        if (firstRoot == secondRoot) {
+            return firstRoot;
+        }
+        if (size[firstRoot] < size[secondRoot]) {
+            int swap = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = swap;
+        }
+        parent[secondRoot] = firstRoot;
+        size[firstRoot] += size[secondRoot];
+        flags[firstRoot] |= flags[secondRoot];
+        return firstRoot;
+    }
+}
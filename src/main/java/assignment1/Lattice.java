@@ -0,0 +1,55 @@
+package assignment1;
+
+/**
+ * Lattice of sites with primitive {@code int} indices. Neighbours are enumerated
+ * by their number {@code 0..maxDegree()-1}, so no arrays or iterators are allocated.
+ * The first row (layer) of sites is the top of the lattice and the last one is its bottom.
+ *
+ * @author Alex Ilyenko
+ * @see LatticePercolation
+ */
+public interface Lattice {
+    /**
+     * Constant returned for neighbours outside of the lattice
+     */
+    int NONE = -1;
+
+    /**
+     * Returns number of sites in the lattice
+     *
+     * @return {@code int} representing number of sites
+     */
+    int sites();
+
+    /**
+     * Returns maximal number of neighbours of one site
+     *
+     * @return {@code int} representing maximal degree
+     */
+    int maxDegree();
+
+    /**
+     * Returns the neighbour of the site with given number
+     *
+     * @param site index of the site
+     * @param k    number of the neighbour, from {@code 0} to {@code maxDegree() - 1}
+     * @return index of the neighbour or {@link #NONE} if there is no such neighbour
+     */
+    int neighbour(int site, int k);
+
+    /**
+     * Shows if the site belongs to the top of the lattice
+     *
+     * @param site index of the site
+     * @return {@code true} if the site is in the top row (layer)
+     */
+    boolean isTop(int site);
+
+    /**
+     * Shows if the site belongs to the bottom of the lattice
+     *
+     * @param site index of the site
+     * @return {@code true} if the site is in the bottom row (layer)
+     */
+    boolean isBottom(int site);
+}
@@ -0,0 +1,337 @@
+package assignment1;
+
+import edu.princeton.cs.introcs.StdOut;
+
+import java.util.SplittableRandom;
+
+/**
+ * Percolation model on arbitrary {@link Lattice}, either site or bond one.
+ * In site percolation sites are opened one by one and connected to their opened neighbours.
+ * In bond percolation all sites are present from the start and bonds between neighbours
+ * are opened one by one. Both use the same union-find core with top/bottom flags on roots
+ * as {@link Percolation} does.
+ *
+ * @author Alex Ilyenko
+ * @see Lattice
+ * @see UnionFind
+ */
+public class LatticePercolation {
+    /**
+     * Flag marking component which contains at least one top site
+     */
+    private static final byte TOP = 1;
+    /**
+     * Flag marking component which contains at least one bottom site
+     */
+    private static final byte BOTTOM = 2;
+    /**
+     * Lattice of the model
+     */
+    private final Lattice lattice;
+    /**
+     * Kind of the model
+     */
+    private final Mode mode;
+    /**
+     * Union-find over all sites of the lattice
+     */
+    private final UnionFind unionFind;
+    /**
+     * Bit set of opened sites, packed by 64 sites per {@code long}. Not used in bond percolation
+     */
+    private final long[] opened;
+    /**
+     * {@link #TOP} and {@link #BOTTOM} flags of the components, only values for roots are meaningful
+     */
+    private final byte[] flags;
+    /**
+     * Latched value showing that some component already touches both top and bottom
+     */
+    private boolean percolated;
+
+    /**
+     * Creates model on the given lattice with all sites blocked in site percolation
+     * or with all bonds blocked in bond percolation
+     *
+     * @param lattice lattice of the model
+     * @param mode    kind of the model
+     * @see Lattice
+     */
+    public LatticePercolation(Lattice lattice, Mode mode) {
+        this.lattice = lattice;
+        this.mode = mode;
+        int sites = lattice.sites();
+        unionFind = new UnionFind(sites);
+        flags = new byte[sites];
+        if (mode == Mode.SITE) {
+            opened = new long[(sites + 63) >>> 6];
+        } else {
+            opened = null;
+            for (int site = 0; site < sites; site++) {
+                flags[site] = boundaryFlags(site);
+                percolated |= flags[site] == (TOP | BOTTOM);
+            }
+        }
+    }
+
+    /**
+     * Main method that estimates percolation thresholds of all lattices, both for site and bond percolation.
+     * Every experiment opens sites or bonds in random order until the lattice percolates, the threshold
+     * is the mean fraction of opened sites or bonds. Known values for infinite lattices are:
+     * square 0.5927 / 0.5, triangular 0.5 / 0.3473, honeycomb 0.6970 / 0.6527 and cubic 0.3116 / 0.2488
+     * <p>
+     * Example of input and output:
+     * % java LatticePercolation 200 100 40
+     * SquareLattice      SITE = 0.592901
+     * SquareLattice      BOND = 0.500040
+     * TriangularLattice  SITE = 0.499839
+     * TriangularLattice  BOND = 0.347863
+     * HoneycombLattice   SITE = 0.703891
+     * HoneycombLattice   BOND = 0.657642
+     * CubicLattice       SITE = 0.314399
+     * CubicLattice       BOND = 0.251742
+     *
+     * @param args array holding args[0] - side length of the planar lattices,
+     *             args[1] - number of experiments per lattice and mode
+     *             and args[2] - side length of the cubic lattice
+     * @see #threshold(Lattice, Mode, int, SplittableRandom)
+     */
+    public static void main(String[] args) {
+        int N = Integer.parseInt(args[0]);
+        int T = Integer.parseInt(args[1]);
+        int L = Integer.parseInt(args[2]);
+        SplittableRandom random = new SplittableRandom();
+        Lattice[] lattices = {new SquareLattice(N), new TriangularLattice(N),
+                new HoneycombLattice(N), new CubicLattice(L)};
+        for (Lattice lattice : lattices) {
+            for (Mode mode : Mode.values()) {
+                StdOut.printf("%-18s %s = %f\n", lattice.getClass().getSimpleName(), mode,
+                        threshold(lattice, mode, T, random));
+            }
+        }
+    }
+
+    /**
+     * Estimates percolation threshold of the lattice by T experiments
+     *
+     * @param lattice lattice of the model
+     * @param mode    kind of the model
+     * @param T       number of experiments
+     * @param random  random source, every experiment uses its own split of it
+     * @return mean fraction of opened sites or bonds at the moment the lattice percolates
+     * @see SitePermutation
+     */
+    private static double threshold(Lattice lattice, Mode mode, int T, SplittableRandom random) {
+        long[] bonds = mode == Mode.BOND ? bonds(lattice) : null;
+        int degree = lattice.maxDegree();
+        int total = bonds == null ? lattice.sites() : bonds.length;
+        SitePermutation permutation = new SitePermutation(total);
+        double sum = 0;
+        for (int t = 0; t < T; t++) {
+            LatticePercolation percolation = new LatticePercolation(lattice, mode);
+            permutation.reset(random.split());
+            int count = 0;
+            while (!percolation.percolates()) {
+                int next = permutation.next();
+                if (bonds == null) {
+                    percolation.openSite(next);
+                } else {
+                    percolation.openBond((int) (bonds[next] / degree), (int) (bonds[next] % degree));
+                }
+                count++;
+            }
+            sum += (double) count / total;
+        }
+        return sum / T;
+    }
+
+    /**
+     * Enumerates every bond of the lattice once, as {@code site * maxDegree() + k}
+     * of the site with the smaller index
+     *
+     * @param lattice lattice of the model
+     * @return array of the bonds
+     */
+    private static long[] bonds(Lattice lattice) {
+        int degree = lattice.maxDegree(), count = 0;
+        for (int site = 0; site < lattice.sites(); site++) {
+            for (int k = 0; k < degree; k++) {
+                if (lattice.neighbour(site, k) > site) {
+                    count++;
+                }
+            }
+        }
+        long[] bonds = new long[count];
+        count = 0;
+        for (int site = 0; site < lattice.sites(); site++) {
+            for (int k = 0; k < degree; k++) {
+                if (lattice.neighbour(site, k) > site) {
+                    bonds[count++] = (long) site * degree + k;
+                }
+            }
+        }
+        return bonds;
+    }
+
+    /**
+     * Opens the site and connects it to its opened neighbours
+     *
+     * @param site index of the site
+     * @throws UnsupportedOperationException if this is bond percolation model
+     * @throws IndexOutOfBoundsException     if there is no such site
+     * @see Lattice#neighbour(int, int)
+     */
+    public void openSite(int site) {
+        if (mode != Mode.SITE) {
+            throw new UnsupportedOperationException("Sites can be opened only in site percolation!");
+        }
+        validate(site);
+        if (isOpened(site)) {
+            return;
+        }
+        opened[site >>> 6] |= 1L << site;
+        flags[site] = boundaryFlags(site);
+        if (flags[site] == (TOP | BOTTOM)) {
+            percolated = true;
+        }
+        for (int k = 0, degree = lattice.maxDegree(); k < degree; k++) {
+            int neighbour = lattice.neighbour(site, k);
+            if (neighbour != Lattice.NONE && isOpened(neighbour)) {
+                connect(site, neighbour);
+            }
+        }
+    }
+
+    /**
+     * Opens the bond between the site and its k-th neighbour
+     *
+     * @param site index of the site
+     * @param k    number of the neighbour
+     * @throws UnsupportedOperationException if this is site percolation model
+     * @throws IndexOutOfBoundsException     if there is no such site or neighbour
+     * @see Lattice#neighbour(int, int)
+     */
+    public void openBond(int site, int k) {
+        if (mode != Mode.BOND) {
+            throw new UnsupportedOperationException("Bonds can be opened only in bond percolation!");
+        }
+        validate(site);
+        int neighbour = k >= 0 && k < lattice.maxDegree() ? lattice.neighbour(site, k) : Lattice.NONE;
+        if (neighbour == Lattice.NONE) {
+            throw new IndexOutOfBoundsException("site has no such neighbour");
+        }
+        connect(site, neighbour);
+    }
+
+    /**
+     * Shows if the site is opened, all sites are opened in bond percolation
+     *
+     * @param site index of the site
+     * @return {@code true} if site is opened,
+     * {@code false} if it's not
+     * @throws IndexOutOfBoundsException if there is no such site
+     */
+    public boolean isOpen(int site) {
+        validate(site);
+        return isOpened(site);
+    }
+
+    /**
+     * Shows if the site is connected to the top of the lattice
+     *
+     * @param site index of the site
+     * @return {@code true} if site is full,
+     * {@code false} if it's not
+     * @throws IndexOutOfBoundsException if there is no such site
+     * @see UnionFind#find(int)
+     */
+    public boolean isFull(int site) {
+        validate(site);
+        return isOpened(site) && (flags[unionFind.find(site)] & TOP) != 0;
+    }
+
+    /**
+     * Shows if top of the lattice is connected to its bottom
+     *
+     * @return {@code true} if the lattice percolates,
+     * {@code false} if it doesn't
+     */
+    public boolean percolates() {
+        return percolated;
+    }
+
+    /**
+     * Checks if the site is opened
+     *
+     * @param site index of the site
+     * @return {@code true} if site is opened,
+     * {@code false} if it's not
+     */
+    private boolean isOpened(int site) {
+        return opened == null || (opened[site >>> 6] & 1L << site) != 0;
+    }
+
+    /**
+     * Calculates initial flags of the site
+     *
+     * @param site index of the site
+     * @return {@link #TOP} and {@link #BOTTOM} flags of the site
+     */
+    private byte boundaryFlags(int site) {
+        byte flag = 0;
+        if (lattice.isTop(site)) {
+            flag |= TOP;
+        }
+        if (lattice.isBottom(site)) {
+            flag |= BOTTOM;
+        }
+        return flag;
+    }
+
+    /**
+     * Merges components of two sites together with their top/bottom flags
+     * and latches {@link #percolated} once merged component touches both top and bottom
+     *
+     * @param first  index of the first site
+     * @param second index of the second site
+     * @see UnionFind#union(int, int)
+     */
+    private void connect(int first, int second) {
+        int firstRoot = unionFind.find(first);
+        int secondRoot = unionFind.find(second);
+        if (firstRoot == secondRoot) {
+            return;
+        }
+        byte merged = (byte) (flags[firstRoot] | flags[secondRoot]);
+        flags[unionFind.union(firstRoot, secondRoot)] = merged;
+        if (merged == (TOP | BOTTOM)) {
+            percolated = true;
+        }
+    }
+
+    /**
+     * Validates index of the site
+     *
+     * @param site index of the site
+     * @throws IndexOutOfBoundsException if there is no such site
+     */
+    private void validate(int site) {
+        if (site < 0 || site >= flags.length) {
+            throw new IndexOutOfBoundsException("site index is out of bounds");
+        }
+    }
+
+    /**
+     * Enum representing kinds of the percolation model
+     */
+    public enum Mode {
+        /**
+         * Sites are opened, all bonds between opened sites are present
+         */
+        SITE,
+        /**
+         * Bonds are opened, all sites are present
+         */
+        BOND
+    }
+}
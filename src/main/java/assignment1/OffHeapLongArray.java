@@ -0,0 +1,214 @@
+package assignment1;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.Consumer;
+
+/**
+ * {@code long} array with {@code long} indices which lives outside of the Java heap.
+ * It is split into memory-mapped buffers of 2^27 elements each, so its length
+ * isn't limited by {@link Integer#MAX_VALUE} and its content is never scanned by GC.
+ * Mapped buffers don't count against {@code -XX:MaxDirectMemorySize}, unlike
+ * {@link ByteBuffer#allocateDirect(int)} ones, and are unmapped right away by {@link #free()}.
+ * All elements are initially zero and are stored little-endian, the same way as {@link BinaryChannels} does.
+ *
+ * @author Alex Ilyenko
+ * @see OffHeapPercolation
+ */
+final class OffHeapLongArray {
+    /**
+     * Number of index bits addressing element inside of one chunk
+     */
+    private static final int CHUNK_SHIFT = 27;
+    /**
+     * Number of elements in one chunk
+     */
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    /**
+     * Mask extracting element index inside of one chunk
+     */
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+    /**
+     * Number of bytes in one element
+     */
+    private static final int ELEMENT_BYTES = Long.BYTES;
+    /**
+     * Function unmapping the buffer, does nothing if the JVM doesn't allow it
+     */
+    private static final Consumer<MappedByteBuffer> UNMAPPER = unmapper();
+    /**
+     * Buffers holding all elements
+     */
+    private final LongBuffer[] chunks;
+    /**
+     * Mapped buffers behind the chunks
+     */
+    private final MappedByteBuffer[] mapped;
+    /**
+     * Number of elements
+     */
+    private final long length;
+
+    /**
+     * Private constructor used by factory methods
+     *
+     * @param chunks buffers holding all elements
+     * @param mapped mapped buffers behind the chunks
+     * @param length number of elements
+     */
+    private OffHeapLongArray(LongBuffer[] chunks, MappedByteBuffer[] mapped, long length) {
+        this.chunks = chunks;
+        this.mapped = mapped;
+        this.length = length;
+    }
+
+    /**
+     * Maps region of the file into memory. Bytes of the region past the end
+     * of the file read as zero
+     *
+     * @param channel  channel of the file opened for reading and writing
+     * @param position offset of the region in bytes
+     * @param length   number of elements
+     * @return new {@code OffHeapLongArray} backed by the file
+     * @throws IOException if the region can't be mapped
+     * @see FileChannel#map(FileChannel.MapMode, long, long)
+     */
+    static OffHeapLongArray map(FileChannel channel, long position, long length) throws IOException {
+        LongBuffer[] chunks = new LongBuffer[chunkCount(length)];
+        MappedByteBuffer[] mapped = new MappedByteBuffer[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            long chunkBytes = (long) chunkLength(length, i) * ELEMENT_BYTES;
+            mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, chunkBytes);
+            chunks[i] = mapped[i].order(BinaryChannels.ORDER).asLongBuffer();
+            position += chunkBytes;
+        }
+        return new OffHeapLongArray(chunks, mapped, length);
+    }
+
+    /**
+     * Returns number of bytes occupied by array with given length
+     *
+     * @param length number of elements
+     * @return number of bytes
+     */
+    static long bytes(long length) {
+        return length * ELEMENT_BYTES;
+    }
+
+    /**
+     * Returns element with given index
+     *
+     * @param index element index
+     * @return element value
+     */
+    long get(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+    }
+
+    /**
+     * Replaces element with given index
+     *
+     * @param index element index
+     * @param value new element value
+     */
+    void set(long index, long value) {
+        chunks[(int) (index >>> CHUNK_SHIFT)].put((int) (index & CHUNK_MASK), value);
+    }
+
+    /**
+     * Returns number of elements
+     *
+     * @return {@code long} representing number of elements
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Writes changes of the array to the backing file
+     *
+     * @see MappedByteBuffer#force()
+     */
+    void force() {
+        for (MappedByteBuffer buffer : mapped) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Unmaps all buffers without waiting for GC. The array can't be used afterwards,
+     * its chunks are dropped so any access fails with {@link NullPointerException}
+     * instead of touching unmapped memory
+     */
+    void free() {
+        for (int i = 0; i < chunks.length; i++) {
+            MappedByteBuffer buffer = mapped[i];
+            chunks[i] = null;
+            mapped[i] = null;
+            if (buffer != null) {
+                UNMAPPER.accept(buffer);
+            }
+        }
+    }
+
+    /**
+     * Finds the way to unmap buffer explicitly: {@code Unsafe.invokeCleaner} since Java 9
+     * or buffer's own cleaner on Java 8. If none of them is accessible the buffer
+     * is left to GC
+     *
+     * @return function unmapping the buffer
+     */
+    private static Consumer<MappedByteBuffer> unmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            return buffer -> {
+                try {
+                    invokeCleaner.invoke(unsafe, buffer);
+                } catch (ReflectiveOperationException ignored) {
+                    // left to GC
+                }
+            };
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return buffer -> {
+                try {
+                    Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                    cleanerMethod.setAccessible(true);
+                    Object cleaner = cleanerMethod.invoke(buffer);
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                } catch (ReflectiveOperationException | RuntimeException ignored) {
+                    // left to GC
+                }
+            };
+        }
+    }
+
+    /**
+     * Calculates number of chunks needed for given length
+     *
+     * @param length number of elements
+     * @return number of chunks
+     */
+    private static int chunkCount(long length) {
+        return (int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT);
+    }
+
+    /**
+     * Calculates number of elements in the chunk with given index
+     *
+     * @param length number of elements in the whole array
+     * @param chunk  chunk index
+     * @return number of elements in the chunk
+     */
+    private static int chunkLength(long length, int chunk) {
+        return (int) Math.min(CHUNK_SIZE, length - ((long) chunk << CHUNK_SHIFT));
+    }
+}
@@ -0,0 +1,437 @@
+package assignment1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class solves the Percolation problem for grids which don't fit into the Java heap.
+ * It has the same {@code open}/{@code isOpen}/{@code isFull}/{@code percolates} API as
+ * {@link Percolation}, but its union-find arrays and open bit set live in a memory-mapped file,
+ * are addressed by {@code long} indices and are never scanned by GC. Grid without a file of its own
+ * is mapped from a temporary file deleted on {@link #close()}, so neither {@code -Xmx} nor
+ * {@code -XX:MaxDirectMemorySize} limit its size; pages of such file stay in memory as long
+ * as there is enough of it.
+ * <p>
+ * All storage is zero-initialized, so parent links are stored as {@code parent + 1}
+ * ({@code 0} for roots) and component sizes as {@code size - 1}, with the top/bottom
+ * flags kept in the two highest bits of the size word.
+ * <p>
+ * Mapped file starts with two-word header holding the grid's side length and the percolation flag,
+ * so the grid can be reopened later by {@link #resume(Path)} straight from the mapping, without copying.
+ * All words are little-endian, like in the checkpoints of {@link Percolation}, so files are portable.
+ *
+ * @author Alex Ilyenko
+ * @see Percolation
+ * @see OffHeapLongArray
+ */
+public class OffHeapPercolation implements Closeable {
+    /**
+     * Flag marking component which contains at least one site of the top row
+     */
+    private static final long TOP = 1L << 62;
+    /**
+     * Flag marking component which contains at least one site of the bottom row
+     */
+    private static final long BOTTOM = Long.MIN_VALUE;
+    /**
+     * Mask extracting {@code size - 1} from the size word
+     */
+    private static final long SIZE_MASK = TOP - 1;
+    /**
+     * High half of the first header word of the backing file
+     */
+    private static final long MAGIC = 0x50455243L;
+    /**
+     * Number of {@code long} words in the header
+     */
+    private static final long HEADER_WORDS = 2;
+    /**
+     * Header holding {@link #MAGIC} with the grid's side length and the percolation flag
+     */
+    private final OffHeapLongArray header;
+    /**
+     * Parent links of all sites, stored as {@code parent + 1}
+     */
+    private final OffHeapLongArray parent;
+    /**
+     * Size words of all sites holding {@code size - 1} together with {@link #TOP} and {@link #BOTTOM} flags.
+     * Only values for roots are meaningful
+     */
+    private final OffHeapLongArray sizes;
+    /**
+     * Bit set representing the indexes of all sites, packed by 64 sites per {@code long}
+     */
+    private final OffHeapLongArray opened;
+    /**
+     * Channel of the backing file
+     */
+    private final FileChannel channel;
+    /**
+     * {@code int} variable representing the grid's side length
+     */
+    private final int N;
+    /**
+     * Latched value showing that some component already touches both top and bottom rows
+     */
+    private boolean percolated;
+    /**
+     * Shows that the storage is already unmapped by {@link #close()}
+     */
+    private boolean closed;
+
+    /**
+     * Creates N*N grid with storage mapped from a new temporary file,
+     * which is deleted once the grid is closed
+     *
+     * @param N grid's side length
+     * @throws IllegalArgumentException if N is less or equal to zero
+     * @throws IOException              if the temporary file can't be created or mapped
+     * @see #close()
+     */
+    public OffHeapPercolation(int N) throws IOException {
+        this(validateSize(N), FileChannel.open(Files.createTempFile("percolation", ".grid"),
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE));
+    }
+
+    /**
+     * Creates N*N grid with storage mapped from the given file.
+     * Existing content of the file is discarded
+     *
+     * @param N    grid's side length
+     * @param file backing file, created if it doesn't exist
+     * @throws IllegalArgumentException if N is less or equal to zero
+     * @throws IOException              if the file can't be opened or mapped
+     * @see OffHeapLongArray#map(FileChannel, long, long)
+     */
+    public OffHeapPercolation(int N, Path file) throws IOException {
+        this(validateSize(N), FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Creates N*N grid with storage mapped from the file of given channel,
+     * keeping its current content. The channel is closed if mapping fails
+     *
+     * @param N       grid's side length
+     * @param channel channel of the backing file opened for reading and writing
+     * @throws IOException if the file can't be mapped
+     * @see OffHeapLongArray#map(FileChannel, long, long)
+     */
+    private OffHeapPercolation(int N, FileChannel channel) throws IOException {
+        long square = (long) N * N;
+        this.N = N;
+        this.channel = channel;
+        try {
+            long position = 0;
+            header = OffHeapLongArray.map(channel, position, HEADER_WORDS);
+            position += OffHeapLongArray.bytes(HEADER_WORDS);
+            parent = OffHeapLongArray.map(channel, position, square);
+            position += OffHeapLongArray.bytes(square);
+            sizes = OffHeapLongArray.map(channel, position, square);
+            position += OffHeapLongArray.bytes(square);
+            opened = OffHeapLongArray.map(channel, position, words(square));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        header.set(0, MAGIC << 32 | N);
+        percolated = header.get(1) != 0;
+    }
+
+    /**
+     * Reopens the grid from the file written by {@link #OffHeapPercolation(int, Path)}.
+     * The file is mapped as is, so the grid is ready right away regardless of its size
+     *
+     * @param file backing file
+     * @return {@code OffHeapPercolation} backed by the file
+     * @throws IOException if the file can't be opened or mapped or isn't a backing file of the grid
+     * @see #force()
+     */
+    public static OffHeapPercolation resume(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long headerBytes = OffHeapLongArray.bytes(HEADER_WORDS);
+            if (channel.size() < headerBytes) {
+                throw new IOException("File is too short to be a backing file of the grid!");
+            }
+            long first = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerBytes)
+                    .order(BinaryChannels.ORDER)
+                    .getLong(0);
+            int N = (int) first;
+            if (first >>> 32 != MAGIC || N <= 0) {
+                throw new IOException("File isn't a backing file of the grid!");
+            }
+            long square = (long) N * N;
+            if (channel.size() != headerBytes + OffHeapLongArray.bytes(2 * square + words(square))) {
+                throw new IOException("Backing file of the grid is corrupted!");
+            }
+            return new OffHeapPercolation(N, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Shows if the site with given row and column is opened
+     *
+     * @param y row index
+     * @param x column index
+     * @return {@code true} if site is opened,
+     * {@code false} if it's not
+     * @see #validate(int, int)
+     */
+    public boolean isOpen(int y, int x) {
+        ensureOpen();
+        validate(x, y);
+        return isOpened(xyTo1D(y, x));
+    }
+
+    /**
+     * Opens the site with given row and column
+     *
+     * @param y row index
+     * @param x column index
+     * @see #validate(int, int)
+     * @see #connectIfIsOpened(long, long)
+     */
+    public void open(int y, int x) {
+        ensureOpen();
+        validate(x, y);
+        long index = xyTo1D(y, x);
+        if (isOpened(index)) {
+            return;
+        }
+        opened.set(index >>> 6, opened.get(index >>> 6) | 1L << index);
+        long flag = 0;
+        if (y == 1) {
+            flag |= TOP;
+        }
+        if (y == N) {
+            flag |= BOTTOM;
+        }
+        sizes.set(index, flag);
+        if (flag == (TOP | BOTTOM)) {
+            latchPercolated();
+        }
+        if (x < N) {
+            connectIfIsOpened(index, index + 1);
+        }
+        if (x > 1) {
+            connectIfIsOpened(index, index - 1);
+        }
+        if (y > 1) {
+            connectIfIsOpened(index, index - N);
+        }
+        if (y < N) {
+            connectIfIsOpened(index, index + N);
+        }
+    }
+
+    /**
+     * Shows if the site with given column and row is full with liquid
+     *
+     * @param y row index
+     * @param x column index
+     * @return {@code true} if site is full,
+     * {@code false} if it's not
+     * @see #find(long)
+     */
+    public boolean isFull(int y, int x) {
+        ensureOpen();
+        validate(x, y);
+        long index = xyTo1D(y, x);
+        return isOpened(index) && (sizes.get(find(index)) & TOP) != 0;
+    }
+
+    /**
+     * Shows if the whole grid percolates
+     *
+     * @return {@code true} if the grid percolates,
+     * {@code false} if it doesn't
+     */
+    public boolean percolates() {
+        return percolated;
+    }
+
+    /**
+     * Writes all changes to the backing file, so they survive crash of the process
+     *
+     * @see OffHeapLongArray#force()
+     */
+    public void force() {
+        ensureOpen();
+        header.force();
+        parent.force();
+        sizes.force();
+        opened.force();
+    }
+
+    /**
+     * Unmaps the storage right away and closes the backing file,
+     * temporary file is deleted. Grid can't be used afterwards
+     *
+     * @throws IOException if the file can't be closed
+     * @see OffHeapLongArray#free()
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        header.free();
+        parent.free();
+        sizes.free();
+        opened.free();
+        channel.close();
+    }
+
+    /**
+     * Connects two sites if the second one is opened
+     *
+     * @param main  index of the site in 1D array
+     * @param other index of the neighbouring site in 1D array
+     * @see #connect(long, long)
+     */
+    private void connectIfIsOpened(long main, long other) {
+        if (isOpened(other)) {
+            connect(main, other);
+        }
+    }
+
+    /**
+     * Checks the bit of the site in {@link #opened} bit set
+     *
+     * @param index index of the site in 1D array
+     * @return {@code true} if site is opened,
+     * {@code false} if it's not
+     */
+    private boolean isOpened(long index) {
+        return (opened.get(index >>> 6) & 1L << index) != 0;
+    }
+
+    /**
+     * Returns the root of the component containing given site,
+     * halving the path on the way up
+     *
+     * @param p index of the site in 1D array
+     * @return index of the root in 1D array
+     */
+    private long find(long p) {
+        long link;
+        while ((link = parent.get(p)) != 0) {
+            long grandLink = parent.get(link - 1);
+            if (grandLink == 0) {
+                return link - 1;
+            }
+            parent.set(p, grandLink);
+            p = grandLink - 1;
+        }
+        return p;
+    }
+
+    /**
+     * Merges components of two sites by size together with their top/bottom flags
+     * and latches {@link #percolated} once merged component touches both rows
+     *
+     * @param first  index of the first site in 1D array
+     * @param second index of the second site in 1D array
+     * @see #find(long)
+     */
+    private void connect(long first, long second) {
+        long firstRoot = find(first);
+        long secondRoot = find(second);
+        if (firstRoot == secondRoot) {
+            return;
+        }
+        long firstWord = sizes.get(firstRoot);
+        long secondWord = sizes.get(secondRoot);
+        long merged = (firstWord | secondWord) & ~SIZE_MASK;
+        long size = (firstWord & SIZE_MASK) + (secondWord & SIZE_MASK) + 1;
+        if ((firstWord & SIZE_MASK) < (secondWord & SIZE_MASK)) {
+            parent.set(firstRoot, secondRoot + 1);
+            sizes.set(secondRoot, merged | size);
+        } else {
+            parent.set(secondRoot, firstRoot + 1);
+            sizes.set(firstRoot, merged | size);
+        }
+        if (merged == (TOP | BOTTOM)) {
+            latchPercolated();
+        }
+    }
+
+    /**
+     * Sets {@link #percolated} and stores it in the header
+     */
+    private void latchPercolated() {
+        if (!percolated) {
+            percolated = true;
+            header.set(1, 1);
+        }
+    }
+
+    /**
+     * Checks that the storage isn't unmapped yet
+     *
+     * @throws IllegalStateException if the grid is already closed
+     */
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Grid is already closed!");
+        }
+    }
+
+    /**
+     * Validates row and column indices of the site
+     *
+     * @param x column index
+     * @param y row index
+     * @throws IndexOutOfBoundsException if one of the indexes less
+     *                                   or equal to zero or more than grid's side size
+     */
+    private void validate(int x, int y) {
+        if (x <= 0 || x > N || y <= 0 || y > N) {
+            throw new IndexOutOfBoundsException("one of the indexes is out of bounds");
+        }
+    }
+
+    /**
+     * Converts 2D array indices of the site to 1D array index
+     *
+     * @param y row index of the site
+     * @param x column index of the site
+     * @return site's index in 1D array
+     */
+    private long xyTo1D(int y, int x) {
+        return (long) N * (y - 1) + x - 1;
+    }
+
+    /**
+     * Validates grid's side length
+     *
+     * @param N grid's side length
+     * @return the same side length
+     * @throws IllegalArgumentException if N is less or equal to zero
+     */
+    private static int validateSize(int N) {
+        if (N <= 0) {
+            throw new IllegalArgumentException("N should be greater than zero!");
+        }
+        return N;
+    }
+
+    /**
+     * Calculates number of {@code long} words needed for bit set of given length
+     *
+     * @param bits number of bits
+     * @return number of words
+     */
+    private static long words(long bits) {
+        return (bits + 63) >>> 6;
+    }
+}
@@ -1,54 +1,180 @@
 package assignment1;
 
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
-
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.BitSet;
 
 /**
  * This class solves the "real world" Percolation problem
- * using weighted quick union-find algorithm
+ * using weighted quick union-find algorithm with path halving.
+ * Every component root carries "touches top" and "touches bottom" flags
+ * which are merged on union, so there are no virtual sites and
+ * {@link #isFull(int, int)} doesn't suffer from backwash.
+ * <p>
+ * "What if" probes are supported by {@link #checkpoint()} and {@link #rollback()}: while there is
+ * a checkpoint, {@code find} doesn't halve paths and every union is written to the undo log,
+ * so probing k sites and rolling them back costs O(k log n) instead of copying the whole grid
  *
  * @author Alex Ilyenko
- * @see WeightedQuickUnionUF
+ * @see UnionFind
  */
 public class Percolation {
     /**
-     * Variable representing {@code WeightedQuickUnionUF} class
+     * Flag marking component which contains at least one site of the top row
+     */
+    private static final byte TOP = 1;
+    /**
+     * Flag marking component which contains at least one site of the bottom row
+     */
+    private static final byte BOTTOM = 2;
+    /**
+     * Maximum number of sites which can be addressed by heap arrays
+     */
+    private static final long MAX_SITES = Integer.MAX_VALUE - 8;
+    /**
+     * Initial capacity of {@link #touched} list, {@link #log} and {@link #checkpoints} stack
+     */
+    private static final int MIN_TOUCHED_SIZE = 16;
+    /**
+     * Number of {@code int} values in one entry of the undo log
+     */
+    private static final int LOG_ENTRY_SIZE = 2;
+    /**
+     * Number of {@code int} values saved by one checkpoint
+     */
+    private static final int CHECKPOINT_SIZE = 6;
+    /**
+     * First {@code int} of the checkpoint file
+     */
+    private static final int MAGIC = 0x50455243;
+    /**
+     * Version of the checkpoint file format
+     */
+    private static final int VERSION = 1;
+    /**
+     * Number of {@code int} values in the header of the checkpoint file
+     */
+    private static final int HEADER_INTS = 8;
+    /**
+     * Variable representing {@code UnionFind} class
      * which implements weighted quick union-find algorithms
      *
-     * @see WeightedQuickUnionUF
+     * @see UnionFind
      */
-    private final WeightedQuickUnionUF weightedQuickUnionUF;
+    private final UnionFind unionFind;
     /**
-     * {@code boolean} array representing the indexes of all sites:
-     * {@code true} - site is already opened
-     * {@code false} - site is closed yet
+     * The same union-find if it counts its work, {@code null} otherwise
+     *
+     * @see CountingUnionFind
      */
-    private final boolean[] opened;
+    private final CountingUnionFind counter;
+    /**
+     * Bit set representing the indexes of all sites, packed by 64 sites per {@code long}:
+     * {@code 1} - site is already opened
+     * {@code 0} - site is closed yet
+     */
+    private final long[] opened;
+    /**
+     * {@code byte} array holding {@link #TOP} and {@link #BOTTOM} flags of the components.
+     * Only values for roots are meaningful
+     */
+    private final byte[] flags;
     /**
      * {@code int} variable representing the grid's side length
      */
     private final int N;
     /**
-     * {@code int} variable representing the reserved site's indices.
-     * It is used for simplified union with top/bottom row of the grid
+     * Latched value showing that some component already touches both top and bottom rows
+     */
+    private boolean percolated;
+    /**
+     * Number of sites in the largest open component
+     */
+    private int largestCluster;
+    /**
+     * Number of open components
+     */
+    private int clusters;
+    /**
+     * Number of sites in open components which touch both top and bottom rows
+     */
+    private int spanningSites;
+    /**
+     * List of opened sites in order of opening, needed to reset the grid
+     * without touching sites which were never opened
+     */
+    private int[] touched = new int[MIN_TOUCHED_SIZE];
+    /**
+     * Number of sites in {@link #touched} list
      */
-    private final int firstReserved, secondReserved;
+    private int touchedCount;
+    /**
+     * Undo log holding {@link #LOG_ENTRY_SIZE} values per union made while there is a checkpoint:
+     * linked root and previous flags of the root it was linked to
+     */
+    private int[] log = new int[MIN_TOUCHED_SIZE * LOG_ENTRY_SIZE];
+    /**
+     * Number of used values in the {@link #log}
+     */
+    private int logSize;
+    /**
+     * Stack of checkpoints holding {@link #CHECKPOINT_SIZE} values each: size of the {@link #log},
+     * number of opened sites, {@link #percolated} flag and cluster statistics
+     */
+    private int[] checkpoints = new int[MIN_TOUCHED_SIZE * CHECKPOINT_SIZE];
+    /**
+     * Number of checkpoints in the stack
+     */
+    private int checkpointCount;
+    /**
+     * Number of {@link #reset()} and {@link #rollback()} calls
+     */
+    private int resets;
 
     /**
      * Takes {@code int} variable and creates N*N grid
      * for solving Percolation problem on it
      *
      * @param N grid's side length
+     * @throws IllegalArgumentException if N is less or equal to zero or
+     *                                  N*N sites don't fit into heap arrays
      * @see assignment1.utils.PercolationVisualizer
-     * @see WeightedQuickUnionUF#WeightedQuickUnionUF(int)
+     * @see UnionFind#UnionFind(int)
      */
     public Percolation(int N) {
+        this(N, false);
+    }
+
+    /**
+     * Creates N*N grid which optionally counts work of its union-find:
+     * {@code find} calls, parent links walked by them and merged components.
+     * Counting costs a few increments on every {@code find}, so it's off by default
+     *
+     * @param N         grid's side length
+     * @param countWork {@code true} to count union-find work
+     * @throws IllegalArgumentException if N is less or equal to zero or
+     *                                  N*N sites don't fit into heap arrays
+     * @see #numberOfFinds()
+     * @see CountingUnionFind
+     */
+    public Percolation(int N, boolean countWork) {
+        if (N <= 0) {
+            throw new IllegalArgumentException("N should be greater than zero!");
+        }
+        long square = (long) N * N;
+        if (square > MAX_SITES) {
+            throw new IllegalArgumentException("Grid with " + square + " sites is too large!");
+        }
         this.N = N;
-        firstReserved = N * N;
-        secondReserved = firstReserved + 1;
-        weightedQuickUnionUF = new WeightedQuickUnionUF(secondReserved + 1);
-        opened = new boolean[firstReserved];
+        counter = countWork ? new CountingUnionFind((int) square) : null;
+        unionFind = countWork ? counter : new UnionFind((int) square);
+        opened = new long[(int) ((square + 63) >>> 6)];
+        flags = new byte[(int) square];
     }
 
 
@@ -63,7 +189,7 @@ public class Percolation {
      */
     public boolean isOpen(int y, int x) {
         validate(x, y);
-        return opened[xyTo1D(y, x)];
+        return isOpened(xyTo1D(y, x));
     }
 
     /**
@@ -72,23 +198,47 @@ public class Percolation {
      * @param y row index
      * @param x column index
      * @see #validate(int, int)
-     * @see WeightedQuickUnionUF#union(int, int)
-     * @see #connectIfIsOpened(int, int...)
+     * @see #connectIfIsOpened(int, int)
      */
     public void open(int y, int x) {
         validate(x, y);
-        int index = xyTo1D(y, x),
-                right = index + 1,
-                left = index - 1,
-                up = index - N,
-                down = index + N;
-        opened[index] = true;
+        int index = (int) xyTo1D(y, x);
+        if (isOpened(index)) {
+            return;
+        }
+        opened[index >>> 6] |= 1L << index;
+        if (touchedCount == touched.length) {
+            touched = Arrays.copyOf(touched, touchedCount << 1);
+        }
+        touched[touchedCount++] = index;
+        byte flag = 0;
         if (y == 1) {
-            weightedQuickUnionUF.union(index, firstReserved);
-        } else if (y == N) {
-            weightedQuickUnionUF.union(index, secondReserved);
+            flag |= TOP;
+        }
+        if (y == N) {
+            flag |= BOTTOM;
+        }
+        flags[index] = flag;
+        if (flag == (TOP | BOTTOM)) {
+            percolated = true;
+            spanningSites++;
+        }
+        if (largestCluster == 0) {
+            largestCluster = 1;
+        }
+        clusters++;
+        if (x < N) {
+            connectIfIsOpened(index, index + 1);
+        }
+        if (x > 1) {
+            connectIfIsOpened(index, index - 1);
+        }
+        if (y > 1) {
+            connectIfIsOpened(index, index - N);
+        }
+        if (y < N) {
+            connectIfIsOpened(index, index + N);
         }
-        connectIfIsOpened(index, right, left, up, down);
     }
 
 
@@ -99,11 +249,12 @@ public class Percolation {
      * @param x column index
      * @return {@code true} if site is full,
      * {@code false} if it's not
-     * @see WeightedQuickUnionUF#connected(int, int)
+     * @see #find(int)
      */
     public boolean isFull(int y, int x) {
         validate(x, y);
-        return weightedQuickUnionUF.connected(xyTo1D(y, x), firstReserved);
+        int index = (int) xyTo1D(y, x);
+        return isOpened(index) && (flags[find(index)] & TOP) != 0;
     }
 
     /**
@@ -111,40 +262,420 @@ public class Percolation {
      *
      * @return {@code true} if the grid percolates,
      * {@code false} if it doesn't
-     * @see WeightedQuickUnionUF#connected(int, int)
      */
     public boolean percolates() {
-        return weightedQuickUnionUF.connected(firstReserved, secondReserved);
+        return percolated;
+    }
+
+    /**
+     * Returns bit set of all opened sites, site in row {@code y} and column {@code x}
+     * has index {@code N * (y - 1) + x - 1}
+     *
+     * @return new {@code BitSet} of opened sites
+     * @see BitSet#valueOf(long[])
+     */
+    public BitSet openMask() {
+        return BitSet.valueOf(opened);
+    }
+
+    /**
+     * Returns bit set of all full sites, indexed the same way as {@link #openMask()}.
+     * It is computed in one pass over opened sites looking up the flags of their roots,
+     * which is much cheaper than calling {@link #isFull(int, int)} for every site
+     *
+     * @return new {@code BitSet} of full sites
+     * @see #find(int)
+     */
+    public BitSet fullMask() {
+        BitSet full = new BitSet(flags.length);
+        for (int i = 0; i < touchedCount; i++) {
+            int index = touched[i];
+            if ((flags[find(index)] & TOP) != 0) {
+                full.set(index);
+            }
+        }
+        return full;
+    }
+
+    /**
+     * Saves the whole state of the grid to the binary file, which can be loaded back by {@link #restore(Path)}.
+     * File holds header followed by open bit set, parent links, component sizes, list of opened sites
+     * and component flags, all values are little-endian. Checkpoints aren't saved
+     *
+     * @param file file to write, created if it doesn't exist and truncated otherwise
+     * @throws IOException if the file can't be written
+     * @see BinaryChannels
+     */
+    public void save(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = BinaryChannels.allocateBuffer();
+            buffer.asIntBuffer().put(new int[]{MAGIC, VERSION, N, percolated ? 1 : 0,
+                    largestCluster, clusters, spanningSites, touchedCount});
+            buffer.limit(HEADER_INTS * Integer.BYTES);
+            BinaryChannels.write(channel, buffer);
+            int square = flags.length;
+            BinaryChannels.writeLongs(channel, buffer, opened);
+            BinaryChannels.writeInts(channel, buffer, unionFind.parents(), square);
+            BinaryChannels.writeInts(channel, buffer, unionFind.sizes(), square);
+            BinaryChannels.writeInts(channel, buffer, touched, touchedCount);
+            BinaryChannels.writeBytes(channel, buffer, flags);
+        }
+    }
+
+    /**
+     * Loads the grid saved by {@link #save(Path)}. The file is memory-mapped
+     * and every array is filled by a single bulk copy, without parsing.
+     * Loaded values are validated in one pass, so corrupted file fails here
+     * instead of breaking later {@code find} or {@code reset} calls
+     *
+     * @param file file to read
+     * @return restored {@code Percolation}
+     * @throws IOException if the file can't be read or isn't a valid checkpoint
+     * @see BinaryChannels
+     * @see #validateState()
+     */
+    public static Percolation restore(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long headerBytes = HEADER_INTS * Integer.BYTES;
+            if (channel.size() < headerBytes) {
+                throw new IOException("File is too short to be a checkpoint!");
+            }
+            int[] header = new int[HEADER_INTS];
+            IntBuffer headerBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerBytes)
+                    .order(BinaryChannels.ORDER)
+                    .asIntBuffer();
+            headerBuffer.get(header);
+            if (header[0] != MAGIC || header[1] != VERSION) {
+                throw new IOException("File isn't a checkpoint of supported version!");
+            }
+            int N = header[2], touchedCount = header[7];
+            if (N <= 0 || (long) N * N > MAX_SITES || touchedCount < 0 || touchedCount > N * N) {
+                throw new IOException("Checkpoint is corrupted!");
+            }
+            Percolation percolation = new Percolation(N);
+            int square = percolation.flags.length;
+            long expected = headerBytes + (long) percolation.opened.length * Long.BYTES
+                    + (2L * square + touchedCount) * Integer.BYTES + square;
+            if (channel.size() != expected) {
+                throw new IOException("Checkpoint is corrupted!");
+            }
+            long position = BinaryChannels.readLongs(channel, headerBytes, percolation.opened);
+            position = BinaryChannels.readInts(channel, position, percolation.unionFind.parents(), square);
+            position = BinaryChannels.readInts(channel, position, percolation.unionFind.sizes(), square);
+            percolation.touched = new int[Math.max(MIN_TOUCHED_SIZE, touchedCount)];
+            position = BinaryChannels.readInts(channel, position, percolation.touched, touchedCount);
+            BinaryChannels.readBytes(channel, position, percolation.flags);
+            percolation.percolated = header[3] != 0;
+            percolation.largestCluster = header[4];
+            percolation.clusters = header[5];
+            percolation.spanningSites = header[6];
+            percolation.touchedCount = touchedCount;
+            if (!percolation.validateState()) {
+                throw new IOException("Checkpoint is corrupted!");
+            }
+            return percolation;
+        }
+    }
+
+    /**
+     * Checks that loaded state is consistent: every link stays inside of the grid and leads
+     * to a bigger tree, so there are no cycles, closed sites are single-site components,
+     * opened sites are listed exactly once and flags and statistics are in range
+     *
+     * @return {@code true} if the state is consistent,
+     * {@code false} if it's not
+     * @see #restore(Path)
+     */
+    private boolean validateState() {
+        int[] parent = unionFind.parents(), size = unionFind.sizes();
+        int square = flags.length;
+        for (int i = 0; i < square; i++) {
+            int link = parent[i];
+            if (link < 0 || link >= square || size[i] <= 0 || size[i] > square
+                    || (flags[i] & ~(TOP | BOTTOM)) != 0) {
+                return false;
+            }
+            if (isOpened(i) ? link != i && (!isOpened(link) || size[link] <= size[i])
+                    : link != i || size[i] != 1 || flags[i] != 0) {
+                return false;
+            }
+        }
+        BitSet listed = new BitSet(square);
+        for (int i = 0; i < touchedCount; i++) {
+            int index = touched[i];
+            if (index < 0 || index >= square || !isOpened(index) || listed.get(index)) {
+                return false;
+            }
+            listed.set(index);
+        }
+        long openedCount = 0;
+        for (long word : opened) {
+            openedCount += Long.bitCount(word);
+        }
+        return openedCount == touchedCount
+                && largestCluster >= 0 && largestCluster <= touchedCount
+                && clusters >= 0 && clusters <= touchedCount
+                && spanningSites >= 0 && spanningSites <= touchedCount;
+    }
+
+    /**
+     * Remembers current state of the grid. Checkpoints can be nested,
+     * unions are written to the undo log only while there is at least one of them
+     *
+     * @see #rollback()
+     */
+    public void checkpoint() {
+        if (checkpoints.length < (checkpointCount + 1) * CHECKPOINT_SIZE) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpoints.length << 1);
+        }
+        int frame = checkpointCount++ * CHECKPOINT_SIZE;
+        checkpoints[frame] = logSize;
+        checkpoints[frame + 1] = touchedCount;
+        checkpoints[frame + 2] = percolated ? 1 : 0;
+        checkpoints[frame + 3] = largestCluster;
+        checkpoints[frame + 4] = clusters;
+        checkpoints[frame + 5] = spanningSites;
+    }
+
+    /**
+     * Restores the state of the last checkpoint and removes this checkpoint. Unions are undone
+     * in reverse order, then sites opened after the checkpoint are closed, so it takes
+     * time proportional to the number of changes only
+     *
+     * @throws IllegalStateException if there are no checkpoints
+     * @see #checkpoint()
+     * @see UnionFind#unlink(int)
+     */
+    public void rollback() {
+        if (checkpointCount == 0) {
+            throw new IllegalStateException("There are no checkpoints to roll back to!");
+        }
+        resets++;
+        int frame = --checkpointCount * CHECKPOINT_SIZE;
+        for (int mark = checkpoints[frame]; logSize > mark; ) {
+            logSize -= LOG_ENTRY_SIZE;
+            flags[unionFind.unlink(log[logSize])] = (byte) log[logSize + 1];
+        }
+        for (int mark = checkpoints[frame + 1]; touchedCount > mark; ) {
+            int index = touched[--touchedCount];
+            opened[index >>> 6] &= ~(1L << index);
+            flags[index] = 0;
+        }
+        percolated = checkpoints[frame + 2] != 0;
+        largestCluster = checkpoints[frame + 3];
+        clusters = checkpoints[frame + 4];
+        spanningSites = checkpoints[frame + 5];
+    }
+
+    /**
+     * Closes all opened sites and drops all checkpoints, so the same object can be reused
+     * for another experiment. Only sites which were opened since the last reset are restored
+     *
+     * @see UnionFind#reset(int)
+     */
+    public void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            int index = touched[i];
+            unionFind.reset(index);
+            flags[index] = 0;
+            opened[index >>> 6] = 0;
+        }
+        resets++;
+        touchedCount = 0;
+        logSize = 0;
+        checkpointCount = 0;
+        percolated = false;
+        largestCluster = 0;
+        clusters = 0;
+        spanningSites = 0;
+        if (counter != null) {
+            counter.resetCounters();
+        }
+    }
+
+    /**
+     * Returns number of opened sites
+     *
+     * @return {@code int} representing number of opened sites
+     */
+    public int numberOfOpenSites() {
+        return touchedCount;
+    }
+
+    /**
+     * Returns site opened k-th since creation or the last reset. Together with
+     * {@link #numberOfOpenSites()} it lets observers process only newly opened sites
+     *
+     * @param k number of the site in opening order, from {@code 0} to {@code numberOfOpenSites() - 1}
+     * @return index of the site, {@code N * (row - 1) + column - 1}
+     * @throws IndexOutOfBoundsException if there is no such opened site
+     */
+    public int openedSite(int k) {
+        if (k < 0 || k >= touchedCount) {
+            throw new IndexOutOfBoundsException("there is no such opened site");
+        }
+        return touched[k];
+    }
+
+    /**
+     * Returns number of {@link #reset()} and {@link #rollback()} calls since creation.
+     * Sites are closed only by these calls, so observers which follow opened sites
+     * know that they should start over once this number changes
+     *
+     * @return {@code int} representing number of resets
+     * @see #openedSite(int)
+     */
+    public int numberOfResets() {
+        return resets;
+    }
+
+    /**
+     * Returns number of open clusters, i.e. components of connected opened sites
+     *
+     * @return {@code int} representing number of clusters
+     */
+    public int numberOfClusters() {
+        return clusters;
+    }
+
+    /**
+     * Returns number of sites in the largest open cluster
+     *
+     * @return size of the largest cluster, {@code 0} if there are no opened sites
+     */
+    public int largestClusterSize() {
+        return largestCluster;
+    }
+
+    /**
+     * Returns mean number of sites in open cluster
+     *
+     * @return {@code double} value of mean cluster size, {@code 0} if there are no opened sites
+     * @see #numberOfOpenSites()
+     * @see #numberOfClusters()
+     */
+    public double meanClusterSize() {
+        return clusters == 0 ? 0 : (double) touchedCount / clusters;
     }
 
     /**
-     * Connects two sites if they are both opened
+     * Returns number of sites in spanning clusters, i.e. clusters which touch
+     * both top and bottom rows. There may be more than one of them
      *
-     * @param main  index of the first site in 1D array
-     * @param others index of the neighboring sites in 1D array
-     * @see #neighbourIsOpened(int, int)
-     * @see WeightedQuickUnionUF#union(int, int)
+     * @return size of spanning clusters, {@code 0} if the grid doesn't percolate
      */
-    private void connectIfIsOpened(int main, int... others) {
-        Arrays.stream(others)
-                .filter(site -> neighbourIsOpened(main, site))
-                .forEach(site -> weightedQuickUnionUF.union(main, site));
+    public int spanningClusterSize() {
+        return spanningSites;
     }
 
     /**
-     * Checks if the second site is opened and
-     * if it's not already connected to the first one
+     * Returns number of union-find {@code find} calls since creation or the last reset
+     *
+     * @return {@code long} representing number of finds, {@code 0} if the grid doesn't count its work
+     * @see #Percolation(int, boolean)
+     */
+    public long numberOfFinds() {
+        return counter == null ? 0 : counter.finds();
+    }
+
+    /**
+     * Returns number of parent links walked by all {@code find} calls since creation or the last reset.
+     * Divided by {@link #numberOfFinds()} it gives mean depth of the union-find trees
+     *
+     * @return {@code long} representing total path length, {@code 0} if the grid doesn't count its work
+     * @see #Percolation(int, boolean)
+     */
+    public long totalPathLength() {
+        return counter == null ? 0 : counter.pathLength();
+    }
+
+    /**
+     * Returns number of merged components since creation or the last reset
+     *
+     * @return {@code long} representing number of unions, {@code 0} if the grid doesn't count its work
+     * @see #Percolation(int, boolean)
+     */
+    public long numberOfUnions() {
+        return counter == null ? 0 : counter.unions();
+    }
+
+    /**
+     * Connects two sites if the second one is opened
+     *
+     * @param main  index of the site in 1D array
+     * @param other index of the neighbouring site in 1D array
+     * @see #connect(int, int)
+     */
+    private void connectIfIsOpened(int main, int other) {
+        if (isOpened(other)) {
+            connect(main, other);
+        }
+    }
+
+    /**
+     * Checks the bit of the site in {@link #opened} bit set
+     *
+     * @param index index of the site in 1D array
+     * @return {@code true} if site is opened,
+     * {@code false} if it's not
+     */
+    private boolean isOpened(long index) {
+        return (opened[(int) (index >>> 6)] & 1L << index) != 0;
+    }
+
+    /**
+     * Returns the root of the component containing given site. Paths are halved
+     * only while there are no checkpoints, so every union can be undone
+     *
+     * @param index index of the site in 1D array
+     * @return index of the root in 1D array
+     * @see UnionFind#find(int)
+     * @see UnionFind#root(int)
+     */
+    private int find(int index) {
+        return checkpointCount == 0 ? unionFind.find(index) : unionFind.root(index);
+    }
+
+    /**
+     * Merges components of two sites together with their top/bottom flags
+     * and latches {@link #percolated} once merged component touches both rows.
+     * Also keeps cluster statistics up to date and writes the union
+     * to the undo log if there is a checkpoint
      *
      * @param first  index of the first site in 1D array
      * @param second index of the second site in 1D array
-     * @return {@code true} if the second site is opened,
-     * not connected to the first one and is in bounds,
-     * {@code false} if one of these conditions fails
+     * @see UnionFind#link(int, int)
      */
-    private boolean neighbourIsOpened(int first, int second) {
-        return (first > second ? second >= 0 : second < firstReserved)
-                && opened[second]
-                && !weightedQuickUnionUF.connected(first, second);
+    private void connect(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        if (firstRoot == secondRoot) {
+            return;
+        }
+        int[] sizes = unionFind.sizes();
+        byte firstFlags = flags[firstRoot], secondFlags = flags[secondRoot];
+        byte merged = (byte) (firstFlags | secondFlags);
+        if (merged == (TOP | BOTTOM)) {
+            percolated = true;
+            if (firstFlags != merged) {
+                spanningSites += sizes[firstRoot];
+            }
+            if (secondFlags != merged) {
+                spanningSites += sizes[secondRoot];
+            }
+        }
+        int root = unionFind.link(firstRoot, secondRoot);
+        if (checkpointCount > 0) {
+            if (logSize + LOG_ENTRY_SIZE > log.length) {
+                log = Arrays.copyOf(log, log.length << 1);
+            }
+            log[logSize++] = root == firstRoot ? secondRoot : firstRoot;
+            log[logSize++] = flags[root];
+        }
+        flags[root] = merged;
+        largestCluster = Math.max(largestCluster, sizes[root]);
+        clusters--;
     }
 
     /**
@@ -166,9 +697,9 @@ public class Percolation {
      *
      * @param y row index of the site
      * @param x column index of the site
-     * @return site's index in 1D array
+     * @return site's index in 1D array, computed without {@code int} overflow
      */
-    private int xyTo1D(int y, int x) {
-        return N * (y - 1) + x - 1;
+    private long xyTo1D(int y, int x) {
+        return (long) N * (y - 1) + x - 1;
     }
 }
@@ -0,0 +1,196 @@
+package assignment1;
+
+import edu.princeton.cs.introcs.StdOut;
+
+import java.util.SplittableRandom;
+
+/**
+ * Data type which computes the whole percolation curve of an N-by-N grid with
+ * Newman-Ziff algorithm. Every one of T trials opens all sites of the grid in random order
+ * and records spanning indicator and size of the largest cluster after each opened site,
+ * so a single sweep gives the observables for every number of opened sites {@code n}.
+ * Values for the site vacancy probability {@code p} are obtained by convolution
+ * with the binomial distribution.
+ *
+ * @author Alex Ilyenko
+ * @see Percolation
+ * @see PercolationStats
+ */
+public class PercolationCurve {
+    /**
+     * Relative weight below which binomial terms are ignored
+     */
+    private static final double EPSILON = 1e-15;
+    /**
+     * Maximum number of sites which can be addressed by heap arrays
+     */
+    private static final long MAX_SITES = Integer.MAX_VALUE - 8;
+    /**
+     * Number of sites in the grid
+     */
+    private final int sites;
+    /**
+     * Array holding fraction of trials which percolate with given number of opened sites
+     */
+    private final double[] spanning;
+    /**
+     * Array holding mean fraction of sites in the largest cluster with given number of opened sites
+     */
+    private final double[] largestCluster;
+
+    /**
+     * Creates {@code PercolationCurve} object and performs T independent
+     * sweeps over an N-by-N grid
+     *
+     * @param N grid side length
+     * @param T number of independent sweeps
+     * @throws IllegalArgumentException if one of the parameters is less or equal to zero or
+     *                                  N*N sites don't fit into heap arrays
+     * @see Percolation#open(int, int)
+     * @see Percolation#percolates()
+     * @see Percolation#largestClusterSize()
+     * @see Percolation#reset()
+     * @see SitePermutation
+     */
+    public PercolationCurve(int N, int T) {
+        if (N <= 0 || T <= 0) {
+            throw new IllegalArgumentException("N and T should be greater than zero!");
+        }
+        long square = (long) N * N;
+        if (square > MAX_SITES) {
+            throw new IllegalArgumentException("Grid with " + square + " sites is too large!");
+        }
+        sites = (int) square;
+        spanning = new double[sites + 1];
+        largestCluster = new double[sites + 1];
+        SplittableRandom random = new SplittableRandom();
+        SitePermutation permutation = new SitePermutation(sites);
+        Percolation percolation = new Percolation(N);
+        for (int t = 0; t < T; t++) {
+            percolation.reset();
+            permutation.reset(random.split());
+            for (int n = 1; n <= sites; n++) {
+                int site = permutation.next();
+                percolation.open(site / N + 1, site % N + 1);
+                if (percolation.percolates()) {
+                    spanning[n]++;
+                }
+                largestCluster[n] += percolation.largestClusterSize();
+            }
+        }
+        double total = (double) T * sites;
+        for (int n = 0; n <= sites; n++) {
+            spanning[n] /= T;
+            largestCluster[n] /= total;
+        }
+    }
+
+    /**
+     * Main method that prints the percolation curve to console
+     * <p>
+     * Example of input and output:
+     * % java PercolationCurve 64 100 5
+     * p                 spanning        largest
+     * 0.000000        0.000000        0.000000
+     * 0.250000        0.000000        0.003763
+     * 0.500000        0.000236        0.038981
+     * 0.750000        1.000000        0.742827
+     * 1.000000        1.000000        1.000000
+     *
+     * @param args array holding args[0] - N (grid side size),
+     *             args[1] - T (number of independent sweeps)
+     *             and args[2] - number of printed points
+     */
+    public static void main(String[] args) {
+        PercolationCurve curve = new PercolationCurve(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        int points = Integer.parseInt(args[2]);
+        StdOut.printf("p\t\t\tspanning\tlargest\n");
+        for (int i = 0; i < points; i++) {
+            double p = points == 1 ? 1 : (double) i / (points - 1);
+            StdOut.printf("%f\t%f\t%f\n", p, curve.spanningProbability(p), curve.largestClusterFraction(p));
+        }
+    }
+
+    /**
+     * Returns probability that the grid percolates with exactly n opened sites
+     *
+     * @param n number of opened sites
+     * @return {@code double} value of spanning probability
+     * @throws IndexOutOfBoundsException if n is negative or greater than number of sites
+     */
+    public double spanningProbability(int n) {
+        return spanning[n];
+    }
+
+    /**
+     * Returns mean fraction of sites in the largest cluster with exactly n opened sites
+     *
+     * @param n number of opened sites
+     * @return {@code double} value of the largest cluster fraction
+     * @throws IndexOutOfBoundsException if n is negative or greater than number of sites
+     */
+    public double largestClusterFraction(int n) {
+        return largestCluster[n];
+    }
+
+    /**
+     * Returns probability that the grid percolates when every site is opened with probability p
+     *
+     * @param p site vacancy probability
+     * @return {@code double} value of spanning probability
+     * @throws IllegalArgumentException if p is outside of [0, 1]
+     * @see #convolve(double[], double)
+     */
+    public double spanningProbability(double p) {
+        return convolve(spanning, p);
+    }
+
+    /**
+     * Returns mean fraction of sites in the largest cluster when every site is opened with probability p
+     *
+     * @param p site vacancy probability
+     * @return {@code double} value of the largest cluster fraction
+     * @throws IllegalArgumentException if p is outside of [0, 1]
+     * @see #convolve(double[], double)
+     */
+    public double largestClusterFraction(double p) {
+        return convolve(largestCluster, p);
+    }
+
+    /**
+     * Convolves observable measured for every number of opened sites with binomial distribution.
+     * Binomial weights are calculated starting from the most probable term in both directions
+     * and the summation stops once terms become negligible
+     *
+     * @param observable array holding observable for every number of opened sites
+     * @param p          site vacancy probability
+     * @return {@code double} value of observable for given probability
+     * @throws IllegalArgumentException if p is outside of [0, 1]
+     */
+    private double convolve(double[] observable, double p) {
+        if (p < 0 || p > 1) {
+            throw new IllegalArgumentException("p should be in [0, 1]!");
+        }
+        if (p == 0) {
+            return observable[0];
+        }
+        if (p == 1) {
+            return observable[sites];
+        }
+        int peak = (int) Math.round(p * sites);
+        double ratio = p / (1 - p);
+        double weight = 1, weights = 1, sum = observable[peak];
+        for (int n = peak; n < sites && weight > EPSILON; n++) {
+            weight *= ratio * (sites - n) / (n + 1);
+            weights += weight;
+            sum += weight * observable[n + 1];
+        }
+        weight = 1;
+        for (int n = peak; n > 0 && weight > EPSILON; n--) {
+            weight *= n / (ratio * (sites - n + 1));
+            weights += weight;
+            sum += weight * observable[n - 1];
+        }
+        return sum / weights;
+    }
+}
@@ -1,12 +1,16 @@
 package assignment1;
 
 import edu.princeton.cs.introcs.StdOut;
-import edu.princeton.cs.introcs.StdRandom;
-import edu.princeton.cs.introcs.StdStats;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * Data type which performs T independent experiments on an N-by-N grid and measures sample mean,
- * standard deviation, low and high endpoints of 95% confidence interval
+ * standard deviation, low and high endpoints of 95% confidence interval.
+ * Mean and variance are accumulated with Welford's streaming algorithm, so the number of
+ * experiments can also be chosen adaptively by {@link #untilPrecision(int, double, long, long)}
  *
  * @author Alex Ilyenko
  * @see Percolation
@@ -18,47 +22,155 @@ public class PercolationStats {
      */
     private static final double DEFAULT_MULTIPLIER = 1.96;
     /**
-     * Array that stores estimates of each percolation threshold
+     * Minimal number of experiments needed to estimate standard deviation
      */
-    private final double[] results;
+    private static final int MIN_TRIALS = 2;
     /**
      * Number of experiments
      */
-    private final int T;
+    private int T;
+    /**
+     * Running mean of percolation threshold estimates
+     */
+    private double mean;
+    /**
+     * Running sum of squared deviations of percolation threshold estimates from {@link #mean}
+     */
+    private double squaredDeviations;
+    /**
+     * Work counters and wall time of all experiments
+     */
+    private final TrialMetrics metrics = new TrialMetrics();
 
     /**
      * Creates {@code PercolationStats} object and performs T independent
-     * experiments on an N-by-N grid
+     * experiments on an N-by-N grid with randomly chosen seed
      *
      * @param N grid side length
      * @param T number of independent experiments
      * @throws IllegalArgumentException if one of the parameters is less or equal to zero
-     * @see Percolation
-     * @see Percolation#Percolation(int)
-     * @see Percolation#open(int, int)
-     * @see Percolation#percolates()
-     * @see StdRandom#uniform(double, double)
+     * @see #PercolationStats(int, int, long)
      */
     public PercolationStats(int N, int T) {
+        this(N, T, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Creates {@code PercolationStats} object and performs T independent
+     * experiments on an N-by-N grid one after another in the current thread
+     *
+     * @param N    grid side length
+     * @param T    number of independent experiments
+     * @param seed seed of the random sources of all experiments
+     * @throws IllegalArgumentException if one of the parameters is less or equal to zero
+     * @see #PercolationStats(int, int, long, ForkJoinPool)
+     */
+    public PercolationStats(int N, int T, long seed) {
+        this(N, T, seed, null);
+    }
+
+    /**
+     * Creates {@code PercolationStats} object and performs T independent
+     * experiments on an N-by-N grid. Sites are opened in the order of random permutation,
+     * so every draw opens a new site. Every experiment uses its own random source seeded
+     * from the given seed in experiment order, so results are the same for any number of threads.
+     * In parallel mode experiments are split into one range per worker of the pool and every range
+     * has its own grid, which is garbage once the constructor returns. Results of parallel experiments
+     * are kept until all of them finish and then accumulated in experiment order, while
+     * sequential experiments are accumulated right away in O(1) memory
+     *
+     * @param N    grid side length
+     * @param T    number of independent experiments
+     * @param seed seed of the random sources of all experiments
+     * @param pool pool running experiments in parallel or {@code null} to run them in the current thread
+     * @throws IllegalArgumentException if one of the parameters is less or equal to zero
+     * @see #PercolationStats(int, int, long, ForkJoinPool, boolean)
+     */
+    public PercolationStats(int N, int T, long seed, ForkJoinPool pool) {
+        this(N, T, seed, pool, false);
+    }
+
+    /**
+     * Creates {@code PercolationStats} object and performs T independent experiments
+     * the same way as {@link #PercolationStats(int, int, long, ForkJoinPool)}, optionally
+     * counting union-find work of every experiment. Wall time of the experiments is always recorded
+     *
+     * @param N         grid side length
+     * @param T         number of independent experiments
+     * @param seed      seed of the random sources of all experiments
+     * @param pool      pool running experiments in parallel or {@code null} to run them in the current thread
+     * @param countWork {@code true} to count union-find work in {@link #metrics()}
+     * @throws IllegalArgumentException if one of the parameters is less or equal to zero
+     * @see TrialRunner
+     * @see ForkJoinPool#submit(Runnable)
+     * @see Percolation#Percolation(int, boolean)
+     */
+    public PercolationStats(int N, int T, long seed, ForkJoinPool pool, boolean countWork) {
         if (N <= 0 || T <= 0) {
             throw new IllegalArgumentException("N and T should be greater than zero!");
         }
-        this.T = T;
-        results = new double[T];
-        int square = N * N;
-        for (int i = 0; i < T; i++) {
-            Percolation percolation = new Percolation(N);
-            double numberOfOpenedCells = 0;
-            while (!percolation.percolates()) {
-                int x = StdRandom.uniform(1, N + 1);
-                int y = StdRandom.uniform(1, N + 1);
-                if (!percolation.isOpen(y, x)) {
-                    percolation.open(y, x);
-                    numberOfOpenedCells++;
-                }
+        if (pool == null) {
+            SplittableRandom seeds = new SplittableRandom(seed);
+            TrialRunner runner = new TrialRunner(N, countWork);
+            for (int i = 0; i < T; i++) {
+                add(runner.run(new SplittableRandom(seeds.nextLong()), metrics));
             }
-            results[i] = numberOfOpenedCells / square;
+            return;
         }
+        double[] results = new double[T];
+        long[] seeds = new SplittableRandom(seed).longs(T).toArray();
+        int chunks = Math.min(T, pool.getParallelism());
+        pool.submit(() -> IntStream.range(0, chunks)
+                .parallel()
+                .forEach(chunk -> {
+                    TrialRunner runner = new TrialRunner(N, countWork);
+                    int end = (int) ((long) T * (chunk + 1) / chunks);
+                    for (int i = (int) ((long) T * chunk / chunks); i < end; i++) {
+                        results[i] = runner.run(new SplittableRandom(seeds[i]), metrics);
+                    }
+                }))
+                .join();
+        for (double result : results) {
+            add(result);
+        }
+    }
+
+    /**
+     * Private constructor creating {@code PercolationStats} without experiments
+     *
+     * @see #untilPrecision(int, double, long, long)
+     */
+    private PercolationStats() {
+    }
+
+    /**
+     * Creates {@code PercolationStats} object and performs experiments on an N-by-N grid
+     * one after another until half-width of 95% confidence interval becomes less or equal
+     * to the given precision or the time limit runs out. Experiments are seeded the same way
+     * as in {@link #PercolationStats(int, int, long, ForkJoinPool)}, only mean and variance
+     * are kept in memory. Union-find work isn't counted
+     *
+     * @param N           grid side length
+     * @param precision   required half-width of 95% confidence interval
+     * @param timeLimitMs time limit in milliseconds
+     * @param seed        seed of the random sources of all experiments
+     * @return {@code PercolationStats} with at least two experiments performed
+     * @throws IllegalArgumentException if one of the parameters is less or equal to zero
+     * @see #trials()
+     */
+    public static PercolationStats untilPrecision(int N, double precision, long timeLimitMs, long seed) {
+        if (N <= 0 || precision <= 0 || timeLimitMs <= 0) {
+            throw new IllegalArgumentException("N, precision and time limit should be greater than zero!");
+        }
+        long deadline = System.nanoTime() + timeLimitMs * 1_000_000;
+        PercolationStats stats = new PercolationStats();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        TrialRunner runner = new TrialRunner(N, false);
+        do {
+            stats.add(runner.run(new SplittableRandom(seeds.nextLong()), stats.metrics));
+        } while (stats.T < MIN_TRIALS
+                || stats.halfWidth() > precision && System.nanoTime() - deadline < 0);
+        return stats;
     }
 
     /**
@@ -84,32 +196,87 @@ public class PercolationStats {
      * mean                    = 0.6669475
      * stddev                  = 0.11775205263262094
      * 95% confidence interval = 0.666217665216461, 0.6676773347835391
+     * <p>
+     * % java PercolationStats 200 100 0 csv
+     * mean                    = 0.593170
+     * stddev                  = 0.010156
+     * 95% confidence interval = 0.591180, 0.595161
+     * trials,openedSites,finds,pathLength,unions,meanPathLength,meanTrialMillis,stddevTrialMillis,
+     * minTrialMillis,p50TrialMillis,p90TrialMillis,p99TrialMillis,maxTrialMillis
+     * 100,2372681,5604042,2947898,2255144,0.526031,4.156133,3.383809,
+     * 2.270698,2.490368,7.602176,19.922944,20.945065
      *
-     * @param args array holding args[0] - N (grid side size)
-     *             and args[1] - T (number of independent computational experiments )
+     * @param args array holding args[0] - N (grid side size),
+     *             args[1] - T (number of independent computational experiments ),
+     *             optional args[2] - number of threads running the experiments, {@code 0} for the current thread
+     *             and optional args[3] - format of the metrics, {@code csv} or {@code json},
+     *             union-find work is counted only if it's given
+     * @see #metrics()
      */
     public static void main(String[] args) {
-        new PercolationStats(Integer.parseInt(args[0]), Integer.parseInt(args[1])).info();
+        int N = Integer.parseInt(args[0]);
+        int T = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : null;
+        boolean countWork = args.length > 3;
+        PercolationStats stats = new PercolationStats(N, T, new SplittableRandom().nextLong(), pool, countWork);
+        if (pool != null) {
+            pool.shutdown();
+        }
+        stats.info();
+        if (countWork) {
+            StdOut.println("json".equalsIgnoreCase(args[3]) ? stats.metrics.toJson() : stats.metrics.toCsv());
+        }
+    }
+
+    /**
+     * Adds estimate of percolation threshold to running mean and variance
+     *
+     * @param result estimate of percolation threshold
+     */
+    private void add(double result) {
+        T++;
+        double delta = result - mean;
+        mean += delta / T;
+        squaredDeviations += delta * (result - mean);
     }
 
+
     /**
      * Calculates mean of percolation threshold
      *
      * @return {@code double} value of mean
-     * @see edu.princeton.cs.introcs.StdStats#mean(double[])
      */
     public double mean() {
-        return StdStats.mean(results);
+        return mean;
     }
 
     /**
      * Calculates standard deviation of percolation threshold
      *
-     * @return {@code double} value of standard deviation
-     * @see edu.princeton.cs.introcs.StdStats#stddev(double[])
+     * @return {@code double} value of standard deviation,
+     * {@link Double#NaN} if only one experiment was performed
      */
     public double stddev() {
-        return StdStats.stddev(results);
+        return Math.sqrt(squaredDeviations / (T - 1));
+    }
+
+    /**
+     * Returns work counters and wall time summed over all performed experiments
+     *
+     * @return {@code TrialMetrics} of the experiments
+     */
+    public TrialMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns number of performed experiments
+     *
+     * @return {@code int} representing number of experiments
+     */
+    public int trials() {
+        return T;
     }
 
     /**
@@ -117,10 +284,10 @@ public class PercolationStats {
      *
      * @return {@code double} value of low endpoint
      * @see #mean()
-     * @see #stddev()
+     * @see #halfWidth()
      */
     public double confidenceLo() {
-        return mean() - DEFAULT_MULTIPLIER * stddev() / Math.sqrt(T);
+        return mean() - halfWidth();
     }
 
     /**
@@ -128,10 +295,20 @@ public class PercolationStats {
      *
      * @return {@code double} value of high endpoint
      * @see #mean()
-     * @see #stddev()
+     * @see #halfWidth()
      */
     public double confidenceHi() {
-        return mean() + DEFAULT_MULTIPLIER * stddev() / Math.sqrt(T);
+        return mean() + halfWidth();
+    }
+
+    /**
+     * Calculates half-width of 95% confidence interval
+     *
+     * @return {@code double} value of half-width
+     * @see #stddev()
+     */
+    private double halfWidth() {
+        return DEFAULT_MULTIPLIER * stddev() / Math.sqrt(T);
     }
 
     /**
@@ -148,4 +325,62 @@ public class PercolationStats {
                 mean(), stddev(), confidenceLo(), confidenceHi());
     }
 
+    /**
+     * Performs experiments on one thread reusing the same {@code Percolation}
+     * and {@code SitePermutation} objects, so small grids with lots of experiments
+     * don't allocate new grid for every experiment
+     *
+     * @see Percolation#reset()
+     * @see SitePermutation#reset(SplittableRandom)
+     */
+    private static final class TrialRunner {
+        /**
+         * Grid side length
+         */
+        private final int N;
+        /**
+         * Grid reused by all experiments of this runner
+         */
+        private final Percolation percolation;
+        /**
+         * Permutation of the sites of the grid
+         */
+        private final SitePermutation permutation;
+
+        /**
+         * Creates runner for N-by-N grid
+         *
+         * @param N         grid side length
+         * @param countWork {@code true} to count union-find work of the experiments
+         */
+        TrialRunner(int N, boolean countWork) {
+            this.N = N;
+            percolation = new Percolation(N, countWork);
+            permutation = new SitePermutation(N * N);
+        }
+
+        /**
+         * Performs one experiment: opens sites in random order until the grid percolates
+         *
+         * @param random  random source of the experiment
+         * @param metrics metrics recording counters and wall time of the experiment
+         * @return estimate of percolation threshold
+         * @see SitePermutation#next()
+         * @see TrialMetrics#record(Percolation, long)
+         */
+        double run(SplittableRandom random, TrialMetrics metrics) {
+            long start = System.nanoTime();
+            percolation.reset();
+            permutation.reset(random);
+            double numberOfOpenedCells = 0;
+            while (!percolation.percolates()) {
+                int site = permutation.next();
+                percolation.open(site / N + 1, site % N + 1);
+                numberOfOpenedCells++;
+            }
+            metrics.record(percolation, System.nanoTime() - start);
+            return numberOfOpenedCells / ((double) N * N);
+        }
+    }
+
 }
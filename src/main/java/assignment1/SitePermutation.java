@@ -0,0 +1,79 @@
+package assignment1;
+
+import java.util.SplittableRandom;
+
+/**
+ * Lazy Fisher-Yates shuffle of site indices {@code 0..n-1}. Every call of {@link #next()}
+ * returns a site which wasn't returned before, so opening sites in this order never wastes
+ * random draws on already opened sites. The permutation array is reused between trials
+ * and {@link #reset(SplittableRandom)} undoes only the swaps made by the previous trial,
+ * so the order of sites depends on the random source only.
+ *
+ * @author Alex Ilyenko
+ * @see PercolationStats
+ * @see PercolationCurve
+ */
+final class SitePermutation {
+    /**
+     * Array holding permuted site indices, first {@link #position} of them are already returned
+     */
+    private final int[] sites;
+    /**
+     * Array holding position picked at every step, needed to undo the swaps
+     */
+    private final int[] picks;
+    /**
+     * Number of already returned sites
+     */
+    private int position;
+    /**
+     * Random source of the current trial
+     */
+    private SplittableRandom random;
+
+    /**
+     * Creates permutation of given number of sites
+     *
+     * @param n number of sites
+     */
+    SitePermutation(int n) {
+        sites = new int[n];
+        picks = new int[n];
+        for (int i = 0; i < n; i++) {
+            sites[i] = i;
+        }
+    }
+
+    /**
+     * Restores identity order by undoing swaps in reverse and
+     * starts new permutation driven by given random source
+     *
+     * @param random random source of the trial
+     */
+    void reset(SplittableRandom random) {
+        int[] sites = this.sites;
+        while (position > 0) {
+            int pick = picks[--position];
+            int site = sites[pick];
+            sites[pick] = sites[position];
+            sites[position] = site;
+        }
+        this.random = random;
+    }
+
+    /**
+     * Picks uniformly random site out of not returned ones
+     *
+     * @return site index
+     * @throws ArrayIndexOutOfBoundsException if all sites are already returned
+     */
+    int next() {
+        int[] sites = this.sites;
+        int pick = position + random.nextInt(sites.length - position);
+        int site = sites[pick];
+        sites[pick] = sites[position];
+        picks[position] = pick;
+        sites[position++] = site;
+        return site;
+    }
+}
@@ -0,0 +1,66 @@
+package assignment1;
+
+/**
+ * N-by-N square lattice where every site has up to four neighbours:
+ * right, left, upper and lower ones. Site in row {@code y} and column {@code x}
+ * (both zero based) has index {@code N * y + x}
+ *
+ * @author Alex Ilyenko
+ * @see Lattice
+ */
+public class SquareLattice implements Lattice {
+    /**
+     * {@code int} variable representing the lattice's side length
+     */
+    protected final int N;
+
+    /**
+     * Creates N*N square lattice
+     *
+     * @param N lattice's side length
+     * @throws IllegalArgumentException if N is less or equal to zero or N*N overflows {@code int}
+     */
+    public SquareLattice(int N) {
+        if (N <= 0 || (long) N * N > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("N should be greater than zero and N*N should fit into int!");
+        }
+        this.N = N;
+    }
+
+    @Override
+    public int sites() {
+        return N * N;
+    }
+
+    @Override
+    public int maxDegree() {
+        return 4;
+    }
+
+    @Override
+    public int neighbour(int site, int k) {
+        int x = site % N;
+        switch (k) {
+            case 0:
+                return x < N - 1 ? site + 1 : NONE;
+            case 1:
+                return x > 0 ? site - 1 : NONE;
+            case 2:
+                return site >= N ? site - N : NONE;
+            case 3:
+                return site < N * (N - 1) ? site + N : NONE;
+            default:
+                return NONE;
+        }
+    }
+
+    @Override
+    public boolean isTop(int site) {
+        return site < N;
+    }
+
+    @Override
+    public boolean isBottom(int site) {
+        return site >= N * (N - 1);
+    }
+}
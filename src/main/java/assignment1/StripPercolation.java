@@ -0,0 +1,234 @@
+package assignment1;
+
+import edu.princeton.cs.introcs.In;
+import edu.princeton.cs.introcs.StdOut;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Labels single large N-by-N grid with known open sites in parallel. The grid is split into
+ * horizontal strips which are labeled independently on the threads of the pool: unions inside
+ * of the strip touch only union-find entries of its own sites. After that components are merged
+ * across strip boundaries, which takes only O(N * strips) unions. Answers are the same as
+ * {@link Percolation} would give after opening all these sites.
+ *
+ * @author Alex Ilyenko
+ * @see Percolation
+ * @see UnionFind
+ */
+public class StripPercolation {
+    /**
+     * Flag marking component which contains at least one site of the top row
+     */
+    private static final byte TOP = 1;
+    /**
+     * Flag marking component which contains at least one site of the bottom row
+     */
+    private static final byte BOTTOM = 2;
+    /**
+     * Maximum number of sites which can be addressed by heap arrays
+     */
+    private static final long MAX_SITES = Integer.MAX_VALUE - 8;
+    /**
+     * Union-find over all sites of the grid
+     */
+    private final UnionFind unionFind;
+    /**
+     * Bit set of opened sites, site in row {@code y} and column {@code x}
+     * has index {@code N * (y - 1) + x - 1}
+     */
+    private final BitSet opened;
+    /**
+     * {@link #TOP} and {@link #BOTTOM} flags of the components, only values for roots are meaningful
+     */
+    private final byte[] flags;
+    /**
+     * {@code int} variable representing the grid's side length
+     */
+    private final int N;
+    /**
+     * Shows that some component touches both top and bottom rows
+     */
+    private final boolean percolated;
+
+    /**
+     * Labels N*N grid splitting it into one strip per thread of the pool.
+     * The bit set is copied, so later changes of it don't affect this grid
+     *
+     * @param N      grid's side length
+     * @param opened bit set of opened sites indexed the same way as {@link Percolation#openMask()}
+     * @param pool   pool labeling the strips
+     * @throws IllegalArgumentException if N is less or equal to zero or
+     *                                  N*N sites don't fit into heap arrays
+     * @see #labelStrip(int, int)
+     * @see #mergeBoundary(int)
+     */
+    public StripPercolation(int N, BitSet opened, ForkJoinPool pool) {
+        validateSize(N);
+        this.N = N;
+        this.opened = (BitSet) opened.clone();
+        unionFind = new UnionFind(N * N);
+        flags = new byte[N * N];
+        int strips = Math.min(N, pool.getParallelism());
+        int[] bounds = new int[strips + 1];
+        for (int strip = 0; strip <= strips; strip++) {
+            bounds[strip] = (int) ((long) N * strip / strips);
+        }
+        pool.submit(() -> IntStream.range(0, strips)
+                .parallel()
+                .forEach(strip -> labelStrip(bounds[strip], bounds[strip + 1])))
+                .join();
+        for (int strip = 1; strip < strips; strip++) {
+            mergeBoundary(bounds[strip]);
+        }
+        int bottom = N * (N - 1);
+        for (int x = 0; x < N; x++) {
+            if (this.opened.get(x)) {
+                flags[unionFind.find(x)] |= TOP;
+            }
+        }
+        boolean percolates = false;
+        for (int x = 0; x < N; x++) {
+            if (this.opened.get(bottom + x)) {
+                int root = unionFind.find(bottom + x);
+                flags[root] |= BOTTOM;
+                percolates |= flags[root] == (TOP | BOTTOM);
+            }
+        }
+        percolated = percolates;
+    }
+
+    /**
+     * Main method that reads the grid from the file and prints whether it percolates.
+     * File starts with N followed by N rows of N numbers, {@code 1} for open site
+     * and {@code 0} for blocked one
+     *
+     * @param args array holding args[0] - name of the file
+     *             and optional args[1] - number of threads
+     */
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        int N = in.readInt();
+        validateSize(N);
+        BitSet opened = new BitSet(N * N);
+        for (int site = 0; site < N * N; site++) {
+            if (in.readInt() != 0) {
+                opened.set(site);
+            }
+        }
+        ForkJoinPool pool = args.length > 1 ? new ForkJoinPool(Integer.parseInt(args[1])) : ForkJoinPool.commonPool();
+        StdOut.println("percolates = " + new StripPercolation(N, opened, pool).percolates());
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Shows if the site with given row and column is opened
+     *
+     * @param y row index
+     * @param x column index
+     * @return {@code true} if site is opened,
+     * {@code false} if it's not
+     * @see #validate(int, int)
+     */
+    public boolean isOpen(int y, int x) {
+        validate(x, y);
+        return opened.get(N * (y - 1) + x - 1);
+    }
+
+    /**
+     * Shows if the site with given column and row is full with liquid
+     *
+     * @param y row index
+     * @param x column index
+     * @return {@code true} if site is full,
+     * {@code false} if it's not
+     * @see UnionFind#find(int)
+     */
+    public boolean isFull(int y, int x) {
+        validate(x, y);
+        int index = N * (y - 1) + x - 1;
+        return opened.get(index) && (flags[unionFind.find(index)] & TOP) != 0;
+    }
+
+    /**
+     * Shows if the whole grid percolates
+     *
+     * @return {@code true} if the grid percolates,
+     * {@code false} if it doesn't
+     */
+    public boolean percolates() {
+        return percolated;
+    }
+
+    /**
+     * Connects opened sites of the rows in [from, to) with their right and lower
+     * neighbours inside of the same strip
+     *
+     * @param from first row of the strip, zero based
+     * @param to   row following the last row of the strip, zero based
+     */
+    private void labelStrip(int from, int to) {
+        for (int y = from; y < to; y++) {
+            for (int x = 0, index = N * y; x < N; x++, index++) {
+                if (!opened.get(index)) {
+                    continue;
+                }
+                if (x + 1 < N && opened.get(index + 1)) {
+                    unionFind.union(index, index + 1);
+                }
+                if (y + 1 < to && opened.get(index + N)) {
+                    unionFind.union(index, index + N);
+                }
+            }
+        }
+    }
+
+    /**
+     * Connects opened sites of the given row with opened sites of the row above,
+     * which belongs to the previous strip
+     *
+     * @param row first row of the strip, zero based
+     */
+    private void mergeBoundary(int row) {
+        for (int x = 0, index = N * row; x < N; x++, index++) {
+            if (opened.get(index) && opened.get(index - N)) {
+                unionFind.union(index, index - N);
+            }
+        }
+    }
+
+    /**
+     * Validates row and column indices of the site
+     *
+     * @param x column index
+     * @param y row index
+     * @throws IndexOutOfBoundsException if one of the indexes less
+     *                                   or equal to zero or more than grid's side size
+     */
+    private void validate(int x, int y) {
+        if (x <= 0 || x > N || y <= 0 || y > N) {
+            throw new IndexOutOfBoundsException("one of the indexes is out of bounds");
+        }
+    }
+
+    /**
+     * Validates grid's side length before anything is allocated
+     *
+     * @param N grid's side length
+     * @throws IllegalArgumentException if N is less or equal to zero or
+     *                                  N*N sites don't fit into heap arrays
+     */
+    private static void validateSize(int N) {
+        if (N <= 0) {
+            throw new IllegalArgumentException("N should be greater than zero!");
+        }
+        if ((long) N * N > MAX_SITES) {
+            throw new IllegalArgumentException("Grid with " + (long) N * N
+                    + " sites is too large, N should be at most " + (int) Math.sqrt(MAX_SITES) + "!");
+        }
+    }
+}
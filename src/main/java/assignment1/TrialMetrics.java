@@ -0,0 +1,286 @@
+package assignment1;
+
+import java.util.Locale;
+
+/**
+ * Work counters of percolation experiments summed over all trials: opened sites,
+ * union-find {@code find} calls, parent links walked by them, merged components and
+ * wall time of the trials. They show whether slow run is caused by deep union-find
+ * trees, by the number of sites drawn or by something outside of the experiments.
+ * Union-find counters are non-zero only for grids which count their work.
+ * <p>
+ * Wall time of every trial goes into log-linear histogram with 8 buckets per power of two,
+ * so the distribution of trial times and its percentiles are kept in constant memory
+ * with about 6% error, no matter how many trials were run.
+ * <p>
+ * Sites are drawn from random permutation, so every draw opens new site and
+ * there are no rejected draws to count: number of draws equals {@link #openedSites()}.
+ * Trials running in parallel record their counters concurrently, so {@link #record(Percolation, long)}
+ * is synchronized.
+ *
+ * @author Alex Ilyenko
+ * @see PercolationStats#metrics()
+ * @see Percolation#numberOfFinds()
+ * @see Percolation#Percolation(int, boolean)
+ */
+public final class TrialMetrics {
+    /**
+     * Number of index bits addressing bucket inside of one power of two
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    /**
+     * Number of buckets inside of one power of two
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Number of trials per bucket of wall time histogram
+     */
+    private final long[] histogram = new long[(Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    /**
+     * Number of recorded trials
+     */
+    private int trials;
+    /**
+     * Number of opened sites, which is also number of random draws
+     */
+    private long openedSites;
+    /**
+     * Number of {@code find} calls
+     */
+    private long finds;
+    /**
+     * Number of parent links walked by {@code find} calls
+     */
+    private long pathLength;
+    /**
+     * Number of merged components
+     */
+    private long unions;
+    /**
+     * Total wall time of the trials in nanoseconds
+     */
+    private long nanos;
+    /**
+     * Running mean of trial wall time in milliseconds
+     */
+    private double meanMillis;
+    /**
+     * Running sum of squared deviations of trial wall time from {@link #meanMillis}, Welford's way
+     */
+    private double squaredDeviations;
+    /**
+     * Wall time of the fastest trial in nanoseconds
+     */
+    private long minNanos = Long.MAX_VALUE;
+    /**
+     * Wall time of the slowest trial in nanoseconds
+     */
+    private long maxNanos;
+
+    /**
+     * Adds counters of the finished trial
+     *
+     * @param percolation grid of the trial, counters of which weren't reset after the trial
+     * @param trialNanos  wall time of the trial in nanoseconds
+     */
+    synchronized void record(Percolation percolation, long trialNanos) {
+        trials++;
+        openedSites += percolation.numberOfOpenSites();
+        finds += percolation.numberOfFinds();
+        pathLength += percolation.totalPathLength();
+        unions += percolation.numberOfUnions();
+        nanos += trialNanos;
+        double millis = trialNanos / 1e6, delta = millis - meanMillis;
+        meanMillis += delta / trials;
+        squaredDeviations += delta * (millis - meanMillis);
+        minNanos = Math.min(minNanos, trialNanos);
+        maxNanos = Math.max(maxNanos, trialNanos);
+        histogram[bucket(Math.max(0, trialNanos))]++;
+    }
+
+    /**
+     * Returns number of recorded trials
+     *
+     * @return {@code int} representing number of trials
+     */
+    public synchronized int trials() {
+        return trials;
+    }
+
+    /**
+     * Returns number of opened sites in all trials, which is also number of random draws
+     *
+     * @return {@code long} representing number of opened sites
+     */
+    public synchronized long openedSites() {
+        return openedSites;
+    }
+
+    /**
+     * Returns number of union-find {@code find} calls in all trials
+     *
+     * @return {@code long} representing number of finds
+     */
+    public synchronized long finds() {
+        return finds;
+    }
+
+    /**
+     * Returns number of parent links walked by {@code find} calls in all trials
+     *
+     * @return {@code long} representing total path length
+     */
+    public synchronized long pathLength() {
+        return pathLength;
+    }
+
+    /**
+     * Returns number of merged components in all trials
+     *
+     * @return {@code long} representing number of unions
+     */
+    public synchronized long unions() {
+        return unions;
+    }
+
+    /**
+     * Returns mean number of parent links walked by one {@code find} call
+     *
+     * @return {@code double} value of mean path length, {@code 0} if there were no finds
+     */
+    public synchronized double meanPathLength() {
+        return finds == 0 ? 0 : (double) pathLength / finds;
+    }
+
+    /**
+     * Returns mean wall time of one trial in milliseconds
+     *
+     * @return {@code double} value of mean trial time, {@code 0} if there were no trials
+     */
+    public synchronized double meanTrialMillis() {
+        return trials == 0 ? 0 : nanos / 1e6 / trials;
+    }
+
+    /**
+     * Returns standard deviation of trial wall time in milliseconds
+     *
+     * @return {@code double} value of trial time standard deviation,
+     * {@code 0} if there were less than two trials
+     */
+    public synchronized double stddevTrialMillis() {
+        return trials < 2 ? 0 : Math.sqrt(squaredDeviations / (trials - 1));
+    }
+
+    /**
+     * Returns wall time of the fastest trial in milliseconds
+     *
+     * @return {@code double} value of minimal trial time, {@code 0} if there were no trials
+     */
+    public synchronized double minTrialMillis() {
+        return trials == 0 ? 0 : minNanos / 1e6;
+    }
+
+    /**
+     * Returns wall time of the slowest trial in milliseconds
+     *
+     * @return {@code double} value of maximal trial time
+     */
+    public synchronized double maxTrialMillis() {
+        return maxNanos / 1e6;
+    }
+
+    /**
+     * Returns percentile of trial wall time in milliseconds, taken from the middle
+     * of the histogram bucket holding it and clamped to the fastest and the slowest trial
+     *
+     * @param percentile percentile from {@code 0} to {@code 100}
+     * @return {@code double} value of trial time percentile, {@code 0} if there were no trials
+     * @throws IllegalArgumentException if percentile isn't in [0, 100]
+     */
+    public synchronized double trialMillisPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile should be in [0, 100]!");
+        }
+        if (trials == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * trials)), seen = 0;
+        if (rank == trials) {
+            return maxNanos / 1e6;
+        }
+        int bucket = 0;
+        while ((seen += histogram[bucket]) < rank) {
+            bucket++;
+        }
+        double middle = (lowerBound(bucket) + lowerBound(bucket + 1) - 1) / 2.0;
+        return Math.min(maxNanos, Math.max(minNanos, middle)) / 1e6;
+    }
+
+    /**
+     * Formats all counters as two CSV lines: header and values
+     *
+     * @return {@code String} with CSV header and values
+     */
+    public synchronized String toCsv() {
+        return "trials,openedSites,finds,pathLength,unions,meanPathLength,meanTrialMillis,stddevTrialMillis,"
+                + "minTrialMillis,p50TrialMillis,p90TrialMillis,p99TrialMillis,maxTrialMillis\n"
+                + String.format(Locale.ROOT, "%d,%d,%d,%d,%d,%f,%f,%f,%f,%f,%f,%f,%f",
+                trials, openedSites, finds, pathLength, unions,
+                meanPathLength(), meanTrialMillis(), stddevTrialMillis(), minTrialMillis(),
+                trialMillisPercentile(50), trialMillisPercentile(90), trialMillisPercentile(99), maxTrialMillis());
+    }
+
+    /**
+     * Formats all counters as JSON object
+     *
+     * @return {@code String} with JSON object
+     */
+    public synchronized String toJson() {
+        StringBuilder buckets = new StringBuilder();
+        for (int bucket = 0; bucket < histogram.length; bucket++) {
+            if (histogram[bucket] != 0) {
+                buckets.append(buckets.length() == 0 ? "" : ", ").append(String.format(Locale.ROOT,
+                        "[%f, %d]", lowerBound(bucket) / 1e6, histogram[bucket]));
+            }
+        }
+        return String.format(Locale.ROOT, "{\"trials\": %d, \"openedSites\": %d, \"finds\": %d, "
+                        + "\"pathLength\": %d, \"unions\": %d, \"meanPathLength\": %f, "
+                        + "\"meanTrialMillis\": %f, \"stddevTrialMillis\": %f, \"minTrialMillis\": %f, "
+                        + "\"p50TrialMillis\": %f, \"p90TrialMillis\": %f, \"p99TrialMillis\": %f, "
+                        + "\"maxTrialMillis\": %f, \"trialMillisHistogram\": [%s]}",
+                trials, openedSites, finds, pathLength, unions,
+                meanPathLength(), meanTrialMillis(), stddevTrialMillis(), minTrialMillis(),
+                trialMillisPercentile(50), trialMillisPercentile(90), trialMillisPercentile(99),
+                maxTrialMillis(), buckets);
+    }
+
+    /**
+     * Calculates histogram bucket of the wall time: values below {@link #SUB_BUCKETS} have
+     * buckets of their own, bigger ones are split by the position of their highest bit
+     * and {@link #SUB_BUCKET_BITS} bits following it
+     *
+     * @param nanos non-negative wall time in nanoseconds
+     * @return index of the bucket
+     */
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int shift = Long.SIZE - 1 - SUB_BUCKET_BITS - Long.numberOfLeadingZeros(nanos);
+        return (shift + 1 << SUB_BUCKET_BITS) + (int) (nanos >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Calculates the smallest wall time falling into the bucket
+     *
+     * @param bucket index of the bucket, may be one past the last bucket
+     * @return wall time in nanoseconds
+     */
+    private static double lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        return (double) ((bucket & SUB_BUCKETS - 1) + SUB_BUCKETS) * (1L << shift);
+    }
+}
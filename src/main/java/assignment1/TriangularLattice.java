@@ -0,0 +1,39 @@
+package assignment1;
+
+/**
+ * N-by-N triangular lattice represented as square lattice with one extra diagonal:
+ * besides right, left, upper and lower neighbours every site is connected
+ * to its upper-right and lower-left neighbours, which gives six neighbours in total
+ *
+ * @author Alex Ilyenko
+ * @see SquareLattice
+ */
+public class TriangularLattice extends SquareLattice {
+
+    /**
+     * Creates N*N triangular lattice
+     *
+     * @param N lattice's side length
+     * @throws IllegalArgumentException if N is less or equal to zero or N*N overflows {@code int}
+     */
+    public TriangularLattice(int N) {
+        super(N);
+    }
+
+    @Override
+    public int maxDegree() {
+        return 6;
+    }
+
+    @Override
+    public int neighbour(int site, int k) {
+        switch (k) {
+            case 4:
+                return site >= N && site % N < N - 1 ? site - N + 1 : NONE;
+            case 5:
+                return site < N * (N - 1) && site % N > 0 ? site + N - 1 : NONE;
+            default:
+                return super.neighbour(site, k);
+        }
+    }
+}
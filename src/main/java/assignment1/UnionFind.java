@@ -0,0 +1,179 @@
+package assignment1;
+
+/**
+ * Primitive {@code int[]}-backed union-find data structure. It uses
+ * union by size together with path halving, which gives nearly
+ * constant amortized time for both {@link #find(int)} and {@link #union(int, int)}.
+ * Unlike {@link edu.princeton.cs.algs4.WeightedQuickUnionUF} it doesn't allocate
+ * anything after construction.
+ *
+ * @author Alex Ilyenko
+ * @see Percolation
+ */
+public class UnionFind {
+    /**
+     * {@code int} array holding parent link of every site,
+     * root sites are linked to themselves
+     */
+    private final int[] parent;
+    /**
+     * {@code int} array holding number of sites in the tree
+     * rooted at given site. Only values for roots are meaningful
+     */
+    private final int[] size;
+
+    /**
+     * Creates union-find data structure with {@code n} sites,
+     * each of them in its own component
+     *
+     * @param n number of sites
+     * @throws IllegalArgumentException if n is negative
+     */
+    public UnionFind(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Number of sites should not be negative!");
+        }
+        parent = new int[n];
+        size = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+    }
+
+    /**
+     * Returns the root of the component containing given site.
+     * Every visited site is linked to its grandparent on the way up (path halving)
+     *
+     * @param p site index
+     * @return root of the component
+     */
+    public int find(int p) {
+        int[] parent = this.parent;
+        while (p != parent[p]) {
+            int grandParent = parent[parent[p]];
+            parent[p] = grandParent;
+            p = grandParent;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the root of the component containing given site without changing any links,
+     * so every link made by {@link #link(int, int)} can be undone by {@link #unlink(int)}.
+     * Union by size keeps it O(log n)
+     *
+     * @param p site index
+     * @return root of the component
+     */
+    int root(int p) {
+        int[] parent = this.parent;
+        while (p != parent[p]) {
+            p = parent[p];
+        }
+        return p;
+    }
+
+    /**
+     * Shows if two sites are in the same component
+     *
+     * @param p first site index
+     * @param q second site index
+     * @return {@code true} if sites are connected,
+     * {@code false} if they're not
+     */
+    public boolean connected(int p, int q) {
+        return find(p) == find(q);
+    }
+
+    /**
+     * Returns number of sites in the component containing given site
+     *
+     * @param p site index
+     * @return size of the component
+     * @see #find(int)
+     */
+    public int size(int p) {
+        return size[find(p)];
+    }
+
+    /**
+     * Detaches given site into its own component. Sites linked to it
+     * should be reset as well, otherwise the structure becomes inconsistent
+     *
+     * @param p site index
+     */
+    public void reset(int p) {
+        parent[p] = p;
+        size[p] = 1;
+    }
+
+    /**
+     * Returns backing array of parent links, used for checkpointing
+     *
+     * @return {@code int} array of parent links
+     * @see Percolation#save(java.nio.file.Path)
+     */
+    int[] parents() {
+        return parent;
+    }
+
+    /**
+     * Returns backing array of component sizes, used for checkpointing
+     *
+     * @return {@code int} array of component sizes
+     * @see Percolation#save(java.nio.file.Path)
+     */
+    int[] sizes() {
+        return size;
+    }
+
+    /**
+     * Merges components containing given sites. Root of the
+     * smaller component is linked to the root of the bigger one
+     *
+     * @param p first site index
+     * @param q second site index
+     * @return root of the merged component
+     * @see #find(int)
+     */
+    public int union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) {
+            return rootP;
+        }
+        return link(rootP, rootQ);
+    }
+
+    /**
+     * Links roots of two different components by size
+     *
+     * @param rootP root of the first component
+     * @param rootQ root of the second component
+     * @return root of the merged component
+     */
+    int link(int rootP, int rootQ) {
+        if (size[rootP] < size[rootQ]) {
+            parent[rootP] = rootQ;
+            size[rootQ] += size[rootP];
+            return rootQ;
+        }
+        parent[rootQ] = rootP;
+        size[rootP] += size[rootQ];
+        return rootP;
+    }
+
+    /**
+     * Undoes the last link of the root, which should be still linked directly to its parent
+     *
+     * @param child root which was linked by {@link #link(int, int)}
+     * @return root it was linked to
+     */
+    int unlink(int child) {
+        int root = parent[child];
+        size[root] -= size[child];
+        parent[child] = child;
+        return root;
+    }
+}
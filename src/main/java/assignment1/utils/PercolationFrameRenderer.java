@@ -0,0 +1,492 @@
+package assignment1.utils;
+
+import assignment1.Percolation;
+import edu.princeton.cs.introcs.In;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless counterpart of {@link PercolationVisualizer}: draws frames straight into
+ * the pixel array of {@link BufferedImage}, one block of pixels per site, and writes them
+ * as numbered PNG files. Doesn't touch {@code StdDraw} or any window, so it works on machines
+ * without display.
+ * <p>
+ * Only the sites which changed their state since the previous frame are redrawn. They are found
+ * from the sites opened since the previous frame: a new site is drawn open, and if it is full,
+ * the open sites connected to it which weren't full yet are flooded, so every site is flooded
+ * at most once. Only after {@link Percolation#reset()} or {@link Percolation#rollback()} the masks
+ * of the whole grid are compared with the drawn state.
+ * <p>
+ * Frames are encoded on a background thread from a pool of {@link #FRAME_BUFFERS} frame buffers.
+ * Changes of every frame are written to the log and replayed into the buffer when it is reused,
+ * so nothing is copied as a whole. When all buffers wait for encoding, rendering thread waits
+ * for the encoder, so memory use stays within {@link #FRAME_BUFFERS} images besides the current one.
+ *
+ * @author Alex Ilyenko
+ * @see PercolationVisualizer
+ * @see Percolation#openedSite(int)
+ * @see Percolation#numberOfResets()
+ */
+public class PercolationFrameRenderer implements Closeable {
+    /**
+     * RGB color of blocked sites
+     */
+    private static final int BLOCKED = 0x000000;
+    /**
+     * RGB color of open sites which are not full
+     */
+    private static final int OPEN = 0xFFFFFF;
+    /**
+     * RGB color of full sites, the same light blue as {@code StdDraw.BOOK_LIGHT_BLUE}
+     */
+    private static final int FULL = 0x67C6F3;
+    /**
+     * Default side length of the site in pixels
+     */
+    private static final int DEFAULT_CELL_SIZE = 8;
+    /**
+     * Number of frame buffers shared by rendering and encoding threads
+     */
+    private static final int FRAME_BUFFERS = 3;
+    /**
+     * Initial capacity of the {@link #log} and flood stack
+     */
+    private static final int MIN_ARRAY_SIZE = 64;
+    /**
+     * Image holding current frame
+     */
+    private final BufferedImage image;
+    /**
+     * Pixels of the {@link #image}, one {@code int} RGB value per pixel
+     */
+    private final int[] pixels;
+    /**
+     * All frame buffers, both free and waiting for encoding
+     */
+    private final Frame[] buffers = new Frame[FRAME_BUFFERS];
+    /**
+     * Frame buffers which aren't waiting for encoding
+     */
+    private final ArrayBlockingQueue<Frame> freeBuffers = new ArrayBlockingQueue<>(FRAME_BUFFERS);
+    /**
+     * Single background thread encoding PNG files
+     */
+    private final ExecutorService encoder;
+    /**
+     * Directory of the PNG files
+     */
+    private final Path directory;
+    /**
+     * Grid's side length
+     */
+    private final int N;
+    /**
+     * Side length of the site in pixels
+     */
+    private final int cellSize;
+    /**
+     * Width of the black gap around every site in pixels
+     */
+    private final int gap;
+    /**
+     * Drawn open sites
+     */
+    private final BitSet drawnOpen = new BitSet();
+    /**
+     * Drawn full sites
+     */
+    private final BitSet drawnFull = new BitSet();
+    /**
+     * Grid of the previous frame
+     */
+    private Percolation drawnGrid;
+    /**
+     * Number of opened sites of {@link #drawnGrid} which are already drawn
+     */
+    private int drawnCount;
+    /**
+     * Number of resets of {@link #drawnGrid} at the moment of the previous frame
+     */
+    private int drawnResets;
+    /**
+     * Log of redrawn sites holding two values per site: site and its color
+     */
+    private int[] log = new int[MIN_ARRAY_SIZE];
+    /**
+     * Number of used values in the {@link #log}
+     */
+    private int logSize;
+    /**
+     * Stack of sites to flood, reused by all frames
+     */
+    private int[] stack = new int[MIN_ARRAY_SIZE];
+    /**
+     * Number of rendered frames
+     */
+    private int frames;
+    /**
+     * Shows that the renderer is already closed
+     */
+    private boolean closed;
+    /**
+     * First failure of the background encoding
+     */
+    private volatile IOException failure;
+
+    /**
+     * Creates renderer of N-by-N grid writing frames into the given directory
+     *
+     * @param N         grid's side length
+     * @param cellSize  side length of the site in pixels
+     * @param directory directory of the PNG files, created if it doesn't exist
+     * @throws IllegalArgumentException if N or cell size is less or equal to zero
+     *                                  or the image doesn't fit into an array
+     * @throws IOException              if the directory can't be created
+     */
+    public PercolationFrameRenderer(int N, int cellSize, Path directory) throws IOException {
+        if (N <= 0 || cellSize <= 0) {
+            throw new IllegalArgumentException("N and cell size should be greater than zero!");
+        }
+        long side = (long) N * cellSize;
+        if (side * side > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Image with " + side * side + " pixels is too large!");
+        }
+        this.N = N;
+        this.cellSize = cellSize;
+        this.directory = Files.createDirectories(directory);
+        gap = cellSize > 2 ? Math.max(1, cellSize / 10) : 0;
+        image = new BufferedImage((int) side, (int) side, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < FRAME_BUFFERS; i++) {
+            buffers[i] = new Frame((int) side);
+            freeBuffers.add(buffers[i]);
+        }
+        encoder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "png-encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Main method that reads the grid size and the sequence of sites to open from the file
+     * and writes one frame after each opened site
+     *
+     * @param args array holding args[0] - name of the input file, args[1] - directory of the frames
+     *             and optional args[2] - side length of the site in pixels
+     * @throws IOException if frames can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        In in = new In(args[0]);
+        int N = in.readInt();
+        int cellSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CELL_SIZE;
+        Percolation perc = new Percolation(N);
+        try (PercolationFrameRenderer renderer = new PercolationFrameRenderer(N, cellSize, Paths.get(args[1]))) {
+            renderer.render(perc);
+            while (!in.isEmpty()) {
+                int i = in.readInt();
+                int j = in.readInt();
+                perc.open(i, j);
+                renderer.render(perc);
+            }
+        }
+    }
+
+    /**
+     * Redraws the sites which changed since the previous frame and queues
+     * the frame for writing into file {@code frameNNNNNN.png}. Waits for the encoder
+     * if all frame buffers are still waiting for encoding
+     *
+     * @param perc grid to render
+     * @throws IOException           if one of the previous frames couldn't be written
+     *                               or the thread was interrupted while waiting for the encoder
+     * @throws IllegalStateException if the renderer is already closed
+     * @see #drawOpened(Percolation)
+     * @see #drawAll(Percolation)
+     */
+    public void render(Percolation perc) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Renderer is already closed!");
+        }
+        checkFailure();
+        if (perc != drawnGrid || perc.numberOfResets() != drawnResets) {
+            drawAll(perc);
+        } else {
+            drawOpened(perc);
+        }
+        drawnGrid = perc;
+        drawnResets = perc.numberOfResets();
+        drawnCount = perc.numberOfOpenSites();
+        Frame frame;
+        try {
+            frame = freeBuffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the encoder!", e);
+        }
+        for (int i = frame.logPosition; i < logSize; i += 2) {
+            fillSite(frame.pixels, log[i], log[i + 1]);
+        }
+        frame.logPosition = logSize;
+        trimLog();
+        Path file = directory.resolve(String.format("frame%06d.png", frames++));
+        encoder.execute(() -> {
+            try {
+                write(frame.image, file);
+            } finally {
+                freeBuffers.add(frame);
+            }
+        });
+    }
+
+    /**
+     * Returns image holding the last rendered frame. It is updated in place by
+     * every {@link #render(Percolation)} call
+     *
+     * @return {@code BufferedImage} of the last frame
+     */
+    public BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * Waits until all queued frames are written and stops the background thread.
+     * Renderer can't be used afterwards
+     *
+     * @throws IOException if one of the frames couldn't be written
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        encoder.shutdown();
+        try {
+            encoder.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing frames!", e);
+        }
+        checkFailure();
+    }
+
+    /**
+     * Draws sites opened since the previous frame. Every new site is drawn open unless it is full,
+     * then all open sites connected to it which aren't drawn full yet are flooded
+     *
+     * @param perc grid to render
+     * @see Percolation#openedSite(int)
+     * @see #flood(int)
+     */
+    private void drawOpened(Percolation perc) {
+        int count = perc.numberOfOpenSites();
+        for (int k = drawnCount; k < count; k++) {
+            drawnOpen.set(perc.openedSite(k));
+        }
+        for (int k = drawnCount; k < count; k++) {
+            int site = perc.openedSite(k);
+            if (drawnFull.get(site)) {
+                continue;
+            }
+            if (perc.isFull(site / N + 1, site % N + 1)) {
+                flood(site);
+            } else {
+                drawSite(site, OPEN);
+            }
+        }
+    }
+
+    /**
+     * Marks the site and all open sites connected to it which aren't drawn full yet as full
+     *
+     * @param site index of the full site
+     */
+    private void flood(int site) {
+        int size = 0;
+        stack[size++] = site;
+        drawnFull.set(site);
+        while (size > 0) {
+            int current = stack[--size];
+            drawSite(current, FULL);
+            int x = current % N;
+            if (size + 4 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length << 1);
+            }
+            if (x < N - 1) {
+                size = push(current + 1, size);
+            }
+            if (x > 0) {
+                size = push(current - 1, size);
+            }
+            if (current >= N) {
+                size = push(current - N, size);
+            }
+            if (current < N * (N - 1)) {
+                size = push(current + N, size);
+            }
+        }
+    }
+
+    /**
+     * Pushes the neighbouring site to the flood stack if it is open and isn't drawn full yet
+     *
+     * @param site index of the neighbouring site
+     * @param size current size of the stack
+     * @return new size of the stack
+     */
+    private int push(int site, int size) {
+        if (drawnOpen.get(site) && !drawnFull.get(site)) {
+            drawnFull.set(site);
+            stack[size++] = site;
+        }
+        return size;
+    }
+
+    /**
+     * Compares the masks of the whole grid with the drawn state and redraws sites
+     * which differ. Used for a new grid and after sites were closed
+     *
+     * @param perc grid to render
+     * @see Percolation#openMask()
+     * @see Percolation#fullMask()
+     */
+    private void drawAll(Percolation perc) {
+        BitSet open = perc.openMask();
+        BitSet full = perc.fullMask();
+        BitSet changed = (BitSet) open.clone();
+        changed.xor(drawnOpen);
+        BitSet changedFull = (BitSet) full.clone();
+        changedFull.xor(drawnFull);
+        changed.or(changedFull);
+        for (int site = changed.nextSetBit(0); site >= 0; site = changed.nextSetBit(site + 1)) {
+            drawSite(site, full.get(site) ? FULL : open.get(site) ? OPEN : BLOCKED);
+        }
+        drawnOpen.clear();
+        drawnOpen.or(open);
+        drawnFull.clear();
+        drawnFull.or(full);
+    }
+
+    /**
+     * Draws the site in the current image and writes it to the log
+     *
+     * @param site  index of the site, {@code N * (row - 1) + column - 1}
+     * @param color RGB color of the site
+     */
+    private void drawSite(int site, int color) {
+        fillSite(pixels, site, color);
+        if (logSize + 2 > log.length) {
+            log = Arrays.copyOf(log, log.length << 1);
+        }
+        log[logSize++] = site;
+        log[logSize++] = color;
+    }
+
+    /**
+     * Drops the part of the {@link #log} which is already replayed into all frame buffers.
+     * Buffers waiting for encoding are already up to date, so only free ones can lag behind
+     */
+    private void trimLog() {
+        int replayed = logSize;
+        for (Frame frame : buffers) {
+            replayed = Math.min(replayed, frame.logPosition);
+        }
+        if (replayed < logSize >>> 1) {
+            return;
+        }
+        System.arraycopy(log, replayed, log, 0, logSize - replayed);
+        logSize -= replayed;
+        for (Frame frame : buffers) {
+            frame.logPosition -= replayed;
+        }
+    }
+
+    /**
+     * Fills the pixel block of the site leaving black gap around it
+     *
+     * @param target pixels to fill
+     * @param site   index of the site, {@code N * (row - 1) + column - 1}
+     * @param color  RGB color of the site
+     */
+    private void fillSite(int[] target, int site, int color) {
+        int width = N * cellSize;
+        int left = site % N * cellSize + gap;
+        int right = (site % N + 1) * cellSize - gap;
+        int top = site / N * cellSize + gap;
+        int bottom = (site / N + 1) * cellSize - gap;
+        for (int y = top; y < bottom; y++) {
+            Arrays.fill(target, y * width + left, y * width + right, color);
+        }
+    }
+
+    /**
+     * Encodes the frame as PNG file, remembers the first failure. Unchecked exceptions are
+     * wrapped into {@code IOException}, so they are reported by {@link #render(Percolation)} and {@link #close()}
+     * instead of being lost in the encoder thread
+     *
+     * @param frame image of the frame
+     * @param file  file to write
+     */
+    private void write(BufferedImage frame, Path file) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            ImageIO.write(frame, "png", file.toFile());
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException("Frame " + file + " couldn't be written!", e);
+        }
+    }
+
+    /**
+     * Rethrows the first failure of the background encoding
+     *
+     * @throws IOException if one of the frames couldn't be written
+     */
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Frame buffer: image, its pixels and position of the {@link #log} they are up to date with
+     */
+    private static final class Frame {
+        /**
+         * Image of the frame
+         */
+        final BufferedImage image;
+        /**
+         * Pixels of the {@link #image}
+         */
+        final int[] pixels;
+        /**
+         * Size of the log at the moment the pixels were last updated
+         */
+        int logPosition;
+
+        /**
+         * Creates black frame
+         *
+         * @param side side length of the image in pixels
+         */
+        Frame(int side) {
+            image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import edu.princeton.cs.introcs.In;
 import edu.princeton.cs.introcs.StdDraw;
 
 import java.awt.*;
+import java.util.BitSet;
 
 public class PercolationVisualizer {
 
@@ -36,13 +37,15 @@ public class PercolationVisualizer {
         StdDraw.filledSquare(N / 2.0, N / 2.0, N / 2.0);
 
         // draw N-by-N grid
+        BitSet full = perc.fullMask();
+        BitSet open = perc.openMask();
         int opened = 0;
-        for (int row = 1; row <= N; row++) {
-            for (int col = 1; col <= N; col++) {
-                if (perc.isFull(row, col)) {
+        for (int row = 1, site = 0; row <= N; row++) {
+            for (int col = 1; col <= N; col++, site++) {
+                if (full.get(site)) {
                     StdDraw.setPenColor(StdDraw.BOOK_LIGHT_BLUE);
                     opened++;
-                } else if (perc.isOpen(row, col)) {
+                } else if (open.get(site)) {
                     StdDraw.setPenColor(StdDraw.WHITE);
                     opened++;
                 } else
@@ -2,15 +2,20 @@ package assignment2;
 
 import edu.princeton.cs.introcs.StdOut;
 
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * Generic data type which represents double-ended queue or deque (pronounced "deck").
  * It is a generalization of a stack and a queue that supports adding and removing items
- * from either the front or the back of the data structure. For more complexity current
- * implementation is based on the array, but it can be based on the {@link java.util.LinkedList}
- * as well.
+ * from either the front or the back of the data structure. Current implementation is based on
+ * the circular array with power-of-two length, so positions are wrapped with a bit mask and
+ * each end grows into the free space left by the other one. The array is doubled only when it is full
+ * and halved when it is a quarter full, which gives amortized constant time for all operations.
  *
  * @param <Item> generic type that is stored in {@code Deque}
  * @author Alex Ilyenko
@@ -19,17 +24,29 @@ import java.util.NoSuchElementException;
 
 public class Deque<Item> implements Iterable<Item> {
     /**
-     * Constant holding initial array size
+     * Constant holding initial array size, should be a power of two
      */
     private static final int MIN_ARRAY_SIZE = 2;
     /**
-     * Array structure holding all elements
+     * Constant holding maximal array size, the largest power of two an array can have
+     */
+    private static final int MAX_ARRAY_SIZE = 1 << 30;
+    /**
+     * Circular array structure holding all elements, its length is always a power of two
      */
     private Item[] items;
     /**
-     * Values needed for adding and removing operations
+     * Position of the first item in the array
+     */
+    private int head;
+    /**
+     * Number of items in {@code Deque}
      */
-    private int itemCount, firstPosition, lastPosition;
+    private int itemCount;
+    /**
+     * Number of structural modifications, checked by spliterators to detect concurrent changes
+     */
+    private int modCount;
 
     /**
      * Creates an empty {@code Deque} with array implementation.
@@ -41,8 +58,7 @@ public class Deque<Item> implements Iterable<Item> {
     public Deque() {
         itemCount = 0;
         items = (Item[]) new Object[MIN_ARRAY_SIZE];
-        firstPosition = 0;
-        lastPosition = 1;
+        head = 0;
     }
 
     /**
@@ -67,91 +83,178 @@ public class Deque<Item> implements Iterable<Item> {
     /**
      * Adds given item to the front of the {@code Deque} and
      * increases number of items in it by one. Also this method can
-     * resize the array if there is no extra space for inserted item
+     * double the array if there is no extra space for inserted item
      *
      * @param item given item to add
-     * @throws java.lang.NullPointerException if item == {@code null}
-     * @see #resize(int, assignment2.Deque.Side)
+     * @throws java.lang.NullPointerException  if item == {@code null}
+     * @throws java.lang.IllegalStateException if {@code Deque} already holds the maximal number of items
+     * @see #ensureCapacity(int)
      * @see #items
      */
     public void addFirst(Item item) {
         if (item == null) {
             throw new NullPointerException("You can not add Null to deque!");
         }
-        if (firstPosition < 0) {
-            resize(items.length + itemCount, Side.FRONT);
-        }
-        items[firstPosition--] = item;
+        ensureCapacity(itemCount + 1);
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
         itemCount++;
+        modCount++;
     }
 
     /**
      * Adds given item to the end of the {@code Deque} and
      * increases number of items in it by one. Also this method can
-     * resize the array if there is no extra space for inserted item
+     * double the array if there is no extra space for inserted item
      *
      * @param item given item to add
-     * @throws java.lang.NullPointerException if item == {@code null}
-     * @see #resize(int, assignment2.Deque.Side)
+     * @throws java.lang.NullPointerException  if item == {@code null}
+     * @throws java.lang.IllegalStateException if {@code Deque} already holds the maximal number of items
+     * @see #ensureCapacity(int)
      * @see #items
      */
     public void addLast(Item item) {
         if (item == null) {
             throw new NullPointerException("You can not add Null to deque!");
         }
-        if (lastPosition == items.length) {
-            resize(items.length + itemCount, Side.END);
-        }
-        items[lastPosition++] = item;
+        ensureCapacity(itemCount + 1);
+        items[(head + itemCount) & (items.length - 1)] = item;
         itemCount++;
+        modCount++;
     }
 
     /**
      * Removes and returns the item form the front of the {@code Deque}. This method
-     * decreases the number of items in the {@code Deque} by one and can shrink the array
-     * if there is a lot extra space in the front of it.
+     * decreases the number of items in the {@code Deque} by one and can halve the array
+     * if it becomes a quarter full.
      *
      * @return item that was removed from the {@code Deque}
      * @throws java.util.NoSuchElementException if {@code Deque} is already empty
-     * @see #resize(int, assignment2.Deque.Side)
+     * @see #shrinkIfSparse()
      * @see #items
      */
     public Item removeFirst() {
         if (isEmpty()) {
             throw new NoSuchElementException("Deque is already empty!");
         }
-        Item item = items[++firstPosition];
-        items[firstPosition] = null;
+        Item item = items[head];
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
         itemCount--;
-        if (itemCount > 0 && firstPosition + items.length - lastPosition >= itemCount << 2) {
-            resize(itemCount << 1, Side.BOTH);
-        }
+        modCount++;
+        shrinkIfSparse();
         return item;
     }
 
     /**
      * Removes and returns the item form the end of the {@code Deque}. This method
-     * decreases the number of items in the {@code Deque} by one and can shrink the array
-     * if there is a lot extra space in the end of it.
+     * decreases the number of items in the {@code Deque} by one and can halve the array
+     * if it becomes a quarter full.
      *
      * @return item that was removed from the {@code Deque}
      * @throws java.util.NoSuchElementException if {@code Deque} is already empty
-     * @see #resize(int, assignment2.Deque.Side)
+     * @see #shrinkIfSparse()
      * @see #items
      */
     public Item removeLast() {
         if (isEmpty()) {
             throw new NoSuchElementException("Deque is already empty!");
         }
-        Item item = items[--lastPosition];
-        items[lastPosition] = null;
+        int last = (head + itemCount - 1) & (items.length - 1);
+        Item item = items[last];
+        items[last] = null;
         itemCount--;
-        if (itemCount > 0 && firstPosition + items.length - lastPosition >= itemCount << 2) {
-            resize(itemCount << 1, Side.BOTH);
-        }
+        modCount++;
+        shrinkIfSparse();
         return item;
     }
 
+    /**
+     * Adds {@code length} items of the array to the front of the {@code Deque} keeping their order,
+     * so {@code src[offset]} becomes the first item. Whole range is checked for {@code null} before
+     * anything is added, the array is resized at most once and items are copied with at most two copies
+     *
+     * @param src    array holding items to add
+     * @param offset index of the first item to add
+     * @param length number of items to add
+     * @throws java.lang.NullPointerException      if one of the items == {@code null}
+     * @throws java.lang.IndexOutOfBoundsException if the range is out of the array bounds
+     * @throws java.lang.IllegalStateException     if {@code Deque} can not hold that many items
+     * @see #ensureCapacity(int)
+     * @see #copyIn(Object[], int, int, int)
+     */
+    public void addAllFirst(Item[] src, int offset, int length) {
+        validateRange(src, offset, length);
+        ensureCapacity(itemCount + length);
+        head = (head - length) & (items.length - 1);
+        copyIn(src, offset, head, length);
+        itemCount += length;
+        modCount++;
+    }
+
+    /**
+     * Adds {@code length} items of the array to the end of the {@code Deque} keeping their order,
+     * so {@code src[offset + length - 1]} becomes the last item. Whole range is checked for {@code null}
+     * before anything is added, the array is resized at most once and items are copied with at most two copies
+     *
+     * @param src    array holding items to add
+     * @param offset index of the first item to add
+     * @param length number of items to add
+     * @throws java.lang.NullPointerException      if one of the items == {@code null}
+     * @throws java.lang.IndexOutOfBoundsException if the range is out of the array bounds
+     * @throws java.lang.IllegalStateException     if {@code Deque} can not hold that many items
+     * @see #ensureCapacity(int)
+     * @see #copyIn(Object[], int, int, int)
+     */
+    public void addAllLast(Item[] src, int offset, int length) {
+        validateRange(src, offset, length);
+        ensureCapacity(itemCount + length);
+        copyIn(src, offset, (head + itemCount) & (items.length - 1), length);
+        itemCount += length;
+        modCount++;
+    }
+
+    /**
+     * Removes up to {@code max} items from the front of the {@code Deque} into the beginning
+     * of the array in their order, so {@code dst[0]} gets the first item. The array
+     * is shrunk at most once
+     *
+     * @param dst array receiving removed items
+     * @param max maximal number of items to remove
+     * @return number of removed items, {@code 0} if {@code Deque} is empty
+     * @throws java.lang.IndexOutOfBoundsException if max is negative or greater than the array length
+     * @see #copyOut(int, Object[], int)
+     */
+    public int drainFirst(Item[] dst, int max) {
+        int count = drainCount(dst, max);
+        copyOut(head, dst, count);
+        head = (head + count) & (items.length - 1);
+        itemCount -= count;
+        modCount++;
+        shrinkIfSparse();
+        return count;
+    }
+
+    /**
+     * Removes up to {@code max} items from the end of the {@code Deque} into the beginning
+     * of the array in their order, so the last removed item is the last item of the {@code Deque}.
+     * The array is shrunk at most once
+     *
+     * @param dst array receiving removed items
+     * @param max maximal number of items to remove
+     * @return number of removed items, {@code 0} if {@code Deque} is empty
+     * @throws java.lang.IndexOutOfBoundsException if max is negative or greater than the array length
+     * @see #copyOut(int, Object[], int)
+     */
+    public int drainLast(Item[] dst, int max) {
+        int count = drainCount(dst, max);
+        copyOut((head + itemCount - count) & (items.length - 1), dst, count);
+        itemCount -= count;
+        modCount++;
+        shrinkIfSparse();
+        return count;
+    }
+
     /**
      * Gets the {@code Iterator} for iterating through all elements in {@code Deque} in order from front to end
      *
@@ -161,19 +264,18 @@ public class Deque<Item> implements Iterable<Item> {
     public Iterator<Item> iterator() {
         return new Iterator<Item>() {
             /**
-             * Default position of {@code Iterator} is first position of item in {@code Deque}
-             * @see assignment2.Deque#firstPosition
+             * Number of items which were already returned, default is zero
              */
-            private int cursor = firstPosition;
+            private int cursor;
 
             /**
              * Checks if {@code Deque} has next item for iterating
              * @return {@code true} if {@code Deque} has left items for iterating and {@code false} if not
-             * @see assignment2.Deque#lastPosition
+             * @see assignment2.Deque#itemCount
              */
             @Override
             public boolean hasNext() {
-                return cursor != lastPosition - 1;
+                return cursor < itemCount;
             }
 
             /**
@@ -187,7 +289,7 @@ public class Deque<Item> implements Iterable<Item> {
                 if (!hasNext()) {
                     throw new NoSuchElementException("You've already reached the end of deque!");
                 }
-                return items[++cursor];
+                return items[(head + cursor++) & (items.length - 1)];
             }
 
             /**
@@ -202,70 +304,285 @@ public class Deque<Item> implements Iterable<Item> {
     }
 
     /**
-     * Increases or decreases the size of the array with items by given capacity from given side.
-     * This method does nothing if capacity is less than the number of items in {@code Deque}
+     * Gets the {@code Spliterator} over all elements in {@code Deque} in order from front to end.
+     * It reports its exact size and splits its range of the array in halves,
+     * so parallel streams can process the elements on several threads. The spliterator is late-binding:
+     * it binds to the array, the first item and the size on the first traversal, split or size query,
+     * and throws {@link java.util.ConcurrentModificationException} if {@code Deque} is modified after that
      *
-     * @param capacity size of the new array
-     * @param side     {@code Side} of the resizing
-     * @see assignment2.Deque.Side
-     * @see java.lang.System#arraycopy(Object, int, Object, int, int)
+     * @return {@code ORDERED}, {@code SIZED}, {@code SUBSIZED} and {@code NONNULL} spliterator
+     * @see assignment2.Deque.DequeSpliterator
      */
-    @SuppressWarnings("unchecked")
-    private void resize(int capacity, Side side) {
-        if (capacity < itemCount) {
+    @Override
+    public Spliterator<Item> spliterator() {
+        return new DequeSpliterator(null, 0, 0, -1, 0);
+    }
+
+    /**
+     * Halves the array while {@code Deque} is not empty and uses only a quarter of it,
+     * moving items only once
+     *
+     * @see #resize(int)
+     */
+    private void shrinkIfSparse() {
+        int capacity = items.length;
+        while (itemCount > 0 && capacity > MIN_ARRAY_SIZE && itemCount <= capacity >> 2) {
+            capacity >>= 1;
+        }
+        if (capacity != items.length) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * Grows the array at once to the smallest power of two which can hold given number of items.
+     * Both single and bulk additions grow through this method, so the array never exceeds
+     * {@link #MAX_ARRAY_SIZE} and its length can not overflow. The limit is checked before anything
+     * else, so an overflowed negative number of items is rejected instead of being taken as fitting
+     *
+     * @param needed number of items the array should hold
+     * @throws java.lang.IllegalStateException if needed number of items doesn't fit into an array
+     * @see #resize(int)
+     */
+    private void ensureCapacity(int needed) {
+        if (needed < 0 || needed > MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("Deque can not hold that many items!");
+        }
+        if (needed <= items.length) {
             return;
         }
-        Item[] tmpArr = (Item[]) new Object[capacity];
-        int destinationPosition = 0;
-        int length = lastPosition;
-        int start = 0;
-        switch (side){
-            case BOTH :
-                start = firstPosition + 1;
-                destinationPosition = (capacity - itemCount) >> 1;
-                firstPosition = destinationPosition - 1;
-                length = itemCount;
-                lastPosition = destinationPosition + length;
-                break;
-            case FRONT:
-                if (capacity < items.length) {
-                    start = firstPosition;
-                    int difference = items.length - capacity;
-                    firstPosition -= difference;
-                    lastPosition -= difference;
-                    destinationPosition = firstPosition;
-                    length = itemCount + 1;
-                } else {
-                    firstPosition = itemCount - 1;
-                    lastPosition += itemCount;
-                    destinationPosition = length = itemCount;
-                }
-                break;
-            default:
-                // no actions required if side is END
-                break;
+        resize(Integer.highestOneBit(needed - 1) << 1);
+    }
+
+    /**
+     * Copies items into the circular array starting from given position, wrapping at most once
+     *
+     * @param src      array holding items
+     * @param offset   index of the first item in the source array
+     * @param position position of the first item in the circular array
+     * @param length   number of items
+     */
+    private void copyIn(Item[] src, int offset, int position, int length) {
+        int firstPart = Math.min(length, items.length - position);
+        System.arraycopy(src, offset, items, position, firstPart);
+        System.arraycopy(src, offset + firstPart, items, 0, length - firstPart);
+    }
+
+    /**
+     * Moves items from the circular array starting from given position into the beginning
+     * of the array, wrapping at most once. Vacated positions are set to {@code null}
+     *
+     * @param position position of the first item in the circular array
+     * @param dst      array receiving items
+     * @param length   number of items
+     */
+    private void copyOut(int position, Item[] dst, int length) {
+        int firstPart = Math.min(length, items.length - position);
+        System.arraycopy(items, position, dst, 0, firstPart);
+        System.arraycopy(items, 0, dst, firstPart, length - firstPart);
+        Arrays.fill(items, position, position + firstPart, null);
+        Arrays.fill(items, 0, length - firstPart, null);
+    }
+
+    /**
+     * Checks that the range lies inside of the array and holds no {@code null} items
+     *
+     * @param src    array holding items
+     * @param offset index of the first item
+     * @param length number of items
+     * @throws java.lang.NullPointerException      if one of the items == {@code null}
+     * @throws java.lang.IndexOutOfBoundsException if the range is out of the array bounds
+     */
+    private static void validateRange(Object[] src, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > src.length - length) {
+            throw new IndexOutOfBoundsException("range is out of the array bounds");
+        }
+        for (int i = offset; i < offset + length; i++) {
+            if (src[i] == null) {
+                throw new NullPointerException("You can not add Null to deque!");
+            }
         }
+    }
 
-        System.arraycopy(items, start, tmpArr, destinationPosition, length);
+    /**
+     * Calculates number of items to drain into the array
+     *
+     * @param dst array receiving items
+     * @param max maximal number of items
+     * @return smaller of max and number of items in {@code Deque}
+     * @throws java.lang.IndexOutOfBoundsException if max is negative or greater than the array length
+     */
+    private int drainCount(Object[] dst, int max) {
+        if (max < 0 || max > dst.length) {
+            throw new IndexOutOfBoundsException("max is out of the array bounds");
+        }
+        return Math.min(max, itemCount);
+    }
+
+    /**
+     * Moves all items into the new array of given capacity, so the first item
+     * gets position zero. Wrapped array is unrolled with at most two copies
+     *
+     * @param capacity size of the new array, a power of two not less than the number of items
+     * @see java.lang.System#arraycopy(Object, int, Object, int, int)
+     */
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        Item[] tmpArr = (Item[]) new Object[capacity];
+        int firstPart = Math.min(itemCount, items.length - head);
+        System.arraycopy(items, head, tmpArr, 0, firstPart);
+        System.arraycopy(items, 0, tmpArr, firstPart, itemCount - firstPart);
         items = tmpArr;
+        head = 0;
     }
 
     /**
-     * Enum representing sides of the {@code Deque}
+     * Late-binding and fail-fast spliterator over the range of positions counted
+     * from the first item of the circular array
+     *
+     * @see java.util.Spliterator
      */
-    private enum Side {
+    private class DequeSpliterator implements Spliterator<Item> {
+        /**
+         * Circular array at the moment of binding, {@code null} before it
+         */
+        private Item[] array;
+        /**
+         * Position of the first item in the array
+         */
+        private int first;
+        /**
+         * Next position to visit, counted from the first item
+         */
+        private int origin;
+        /**
+         * Position following the last one to visit, counted from the first item, {@code -1} before binding
+         */
+        private int fence;
+        /**
+         * Number of modifications of {@code Deque} at the moment of binding
+         */
+        private int expectedModCount;
+
+        /**
+         * Creates spliterator over positions [origin, fence)
+         *
+         * @param array            circular array holding items
+         * @param first            position of the first item in the array
+         * @param origin           first position to visit, counted from the first item
+         * @param fence            position following the last one to visit, {@code -1} to bind on the first use
+         * @param expectedModCount number of modifications of {@code Deque} at the moment of binding
+         */
+        DequeSpliterator(Item[] array, int first, int origin, int fence, int expectedModCount) {
+            this.array = array;
+            this.first = first;
+            this.origin = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        /**
+         * Binds to the current state of {@code Deque} on the first use
+         *
+         * @return position following the last one to visit
+         */
+        private int getFence() {
+            if (fence < 0) {
+                array = items;
+                first = head;
+                fence = itemCount;
+                expectedModCount = modCount;
+            }
+            return fence;
+        }
+
+        /**
+         * Checks that {@code Deque} wasn't modified since binding
+         *
+         * @throws java.util.ConcurrentModificationException if {@code Deque} was modified
+         */
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("Deque was modified during traversal!");
+            }
+        }
+
+        /**
+         * Performs given action on the next item if there is one
+         *
+         * @param action action to perform
+         * @return {@code true} if there was an item, {@code false} if the range is exhausted
+         * @throws java.util.ConcurrentModificationException if {@code Deque} was modified since binding
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super Item> action) {
+            if (action == null) {
+                throw new NullPointerException("Action can not be Null!");
+            }
+            if (origin >= getFence()) {
+                return false;
+            }
+            checkForComodification();
+            action.accept(array[(first + origin++) & (array.length - 1)]);
+            return true;
+        }
+
         /**
-         * Front side
+         * Performs given action on all remaining items
+         *
+         * @param action action to perform
+         * @throws java.util.ConcurrentModificationException if {@code Deque} was modified since binding
          */
-        FRONT,
+        @Override
+        public void forEachRemaining(Consumer<? super Item> action) {
+            if (action == null) {
+                throw new NullPointerException("Action can not be Null!");
+            }
+            int end = getFence();
+            checkForComodification();
+            int mask = array.length - 1;
+            for (int i = origin; i < end; i++) {
+                action.accept(array[(first + i) & mask]);
+            }
+            origin = end;
+            checkForComodification();
+        }
+
         /**
-         * End side
+         * Gives away the first half of the remaining range
+         *
+         * @return spliterator over the first half or {@code null} if the range is too small to split
          */
-        END,
+        @Override
+        public Spliterator<Item> trySplit() {
+            int middle = (origin + getFence()) >>> 1;
+            if (middle <= origin) {
+                return null;
+            }
+            Spliterator<Item> prefix = new DequeSpliterator(array, first, origin, middle, expectedModCount);
+            origin = middle;
+            return prefix;
+        }
+
         /**
-         * Both sides
+         * Returns exact number of remaining items
+         *
+         * @return {@code long} representing number of remaining items
          */
-        BOTH
+        @Override
+        public long estimateSize() {
+            return getFence() - origin;
+        }
+
+        /**
+         * Returns characteristics of the spliterator
+         *
+         * @return {@code ORDERED}, {@code SIZED}, {@code SUBSIZED} and {@code NONNULL}
+         */
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,215 @@
+package assignment2;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Double-ended queue of primitive {@code int} values with the same contract as {@link Deque}.
+ * Values are stored in the {@code int} circular array with power-of-two length, so they are
+ * never boxed and take 4 bytes each instead of a reference plus an {@code Integer} object.
+ * {@link #iterator()} returns {@link PrimitiveIterator.OfInt}, which doesn't box
+ * as long as values are read with {@code nextInt} or {@code forEachRemaining(IntConsumer)}.
+ *
+ * @author Alex Ilyenko
+ * @see Deque
+ * @see LongDeque
+ * @see DoubleDeque
+ */
+public class IntDeque implements Iterable<Integer> {
+    /**
+     * Constant holding initial array size, should be a power of two
+     */
+    private static final int MIN_ARRAY_SIZE = 2;
+    /**
+     * Constant holding maximal array size, the largest power of two an array can have
+     */
+    private static final int MAX_ARRAY_SIZE = 1 << 30;
+    /**
+     * Circular array holding all values, its length is always a power of two
+     */
+    private int[] items;
+    /**
+     * Position of the first value in the array
+     */
+    private int head;
+    /**
+     * Number of values in {@code IntDeque}
+     */
+    private int itemCount;
+
+    /**
+     * Creates an empty {@code IntDeque}. Default array length is 2.
+     *
+     * @see #MIN_ARRAY_SIZE
+     */
+    public IntDeque() {
+        items = new int[MIN_ARRAY_SIZE];
+    }
+
+    /**
+     * Checks if {@code IntDeque} is empty
+     *
+     * @return {@code true} for empty {@code IntDeque} and
+     * {@code false} if {@code IntDeque} has at least one value
+     */
+    public boolean isEmpty() {
+        return itemCount == 0;
+    }
+
+    /**
+     * Returns the number of values in {@code IntDeque}
+     *
+     * @return {@code int} representing number of values
+     */
+    public int size() {
+        return itemCount;
+    }
+
+    /**
+     * Adds given value to the front of the {@code IntDeque},
+     * doubling the array if there is no extra space for it
+     *
+     * @param item given value to add
+     * @throws java.lang.IllegalStateException if {@code IntDeque} already holds the maximal number of values
+     * @see #ensureCapacity(int)
+     */
+    public void addFirst(int item) {
+        ensureCapacity(itemCount + 1);
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        itemCount++;
+    }
+
+    /**
+     * Adds given value to the end of the {@code IntDeque},
+     * doubling the array if there is no extra space for it
+     *
+     * @param item given value to add
+     * @throws java.lang.IllegalStateException if {@code IntDeque} already holds the maximal number of values
+     * @see #ensureCapacity(int)
+     */
+    public void addLast(int item) {
+        ensureCapacity(itemCount + 1);
+        items[(head + itemCount) & (items.length - 1)] = item;
+        itemCount++;
+    }
+
+    /**
+     * Removes and returns the value from the front of the {@code IntDeque},
+     * halving the array if it becomes a quarter full
+     *
+     * @return value that was removed from the {@code IntDeque}
+     * @throws java.util.NoSuchElementException if {@code IntDeque} is already empty
+     * @see #shrinkIfSparse()
+     */
+    public int removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is already empty!");
+        }
+        int item = items[head];
+        head = (head + 1) & (items.length - 1);
+        itemCount--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    /**
+     * Removes and returns the value from the end of the {@code IntDeque},
+     * halving the array if it becomes a quarter full
+     *
+     * @return value that was removed from the {@code IntDeque}
+     * @throws java.util.NoSuchElementException if {@code IntDeque} is already empty
+     * @see #shrinkIfSparse()
+     */
+    public int removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is already empty!");
+        }
+        int item = items[(head + itemCount - 1) & (items.length - 1)];
+        itemCount--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    /**
+     * Gets the primitive iterator for iterating through all values in order from front to end
+     *
+     * @return {@code PrimitiveIterator.OfInt}
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            /**
+             * Number of values which were already returned
+             */
+            private int cursor;
+
+            /**
+             * Checks if {@code IntDeque} has next value for iterating
+             * @return {@code true} if there are values left for iterating and {@code false} if not
+             */
+            @Override
+            public boolean hasNext() {
+                return cursor < itemCount;
+            }
+
+            /**
+             * Returns next value in order from front to end without boxing
+             * @return next value
+             * @throws java.util.NoSuchElementException if there is no values left
+             */
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("You've already reached the end of deque!");
+                }
+                return items[(head + cursor++) & (items.length - 1)];
+            }
+        };
+    }
+
+    /**
+     * Halves the array if {@code IntDeque} is not empty and uses only a quarter of it
+     *
+     * @see #resize(int)
+     */
+    private void shrinkIfSparse() {
+        if (itemCount > 0 && items.length > MIN_ARRAY_SIZE && itemCount <= items.length >> 2) {
+            resize(items.length >> 1);
+        }
+    }
+
+    /**
+     * Grows the array to the smallest power of two which can hold given number of values,
+     * so the array never exceeds {@link #MAX_ARRAY_SIZE} and its length can not overflow
+     *
+     * @param needed number of values the array should hold
+     * @throws java.lang.IllegalStateException if needed number of values doesn't fit into an array
+     * @see #resize(int)
+     */
+    private void ensureCapacity(int needed) {
+        if (needed < 0 || needed > MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("Deque can not hold that many values!");
+        }
+        if (needed <= items.length) {
+            return;
+        }
+        resize(Integer.highestOneBit(needed - 1) << 1);
+    }
+
+    /**
+     * Moves all values into the new array of given capacity, so the first value
+     * gets position zero. Wrapped array is unrolled with at most two copies
+     *
+     * @param capacity size of the new array, a power of two not less than the number of values
+     * @see java.lang.System#arraycopy(Object, int, Object, int, int)
+     */
+    private void resize(int capacity) {
+        int[] tmpArr = new int[capacity];
+        int firstPart = Math.min(itemCount, items.length - head);
+        System.arraycopy(items, head, tmpArr, 0, firstPart);
+        System.arraycopy(items, 0, tmpArr, firstPart, itemCount - firstPart);
+        items = tmpArr;
+        head = 0;
+    }
+}
@@ -0,0 +1,215 @@
+package assignment2;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Double-ended queue of primitive {@code long} values with the same contract as {@link Deque}.
+ * Values are stored in the {@code long} circular array with power-of-two length, so they are
+ * never boxed and take 8 bytes each instead of a reference plus a {@code Long} object.
+ * {@link #iterator()} returns {@link PrimitiveIterator.OfLong}, which doesn't box
+ * as long as values are read with {@code nextLong} or {@code forEachRemaining(LongConsumer)}.
+ *
+ * @author Alex Ilyenko
+ * @see Deque
+ * @see IntDeque
+ * @see DoubleDeque
+ */
+public class LongDeque implements Iterable<Long> {
+    /**
+     * Constant holding initial array size, should be a power of two
+     */
+    private static final int MIN_ARRAY_SIZE = 2;
+    /**
+     * Constant holding maximal array size, the largest power of two an array can have
+     */
+    private static final int MAX_ARRAY_SIZE = 1 << 30;
+    /**
+     * Circular array holding all values, its length is always a power of two
+     */
+    private long[] items;
+    /**
+     * Position of the first value in the array
+     */
+    private int head;
+    /**
+     * Number of values in {@code LongDeque}
+     */
+    private int itemCount;
+
+    /**
+     * Creates an empty {@code LongDeque}. Default array length is 2.
+     *
+     * @see #MIN_ARRAY_SIZE
+     */
+    public LongDeque() {
+        items = new long[MIN_ARRAY_SIZE];
+    }
+
+    /**
+     * Checks if {@code LongDeque} is empty
+     *
+     * @return {@code true} for empty {@code LongDeque} and
+     * {@code false} if {@code LongDeque} has at least one value
+     */
+    public boolean isEmpty() {
+        return itemCount == 0;
+    }
+
+    /**
+     * Returns the number of values in {@code LongDeque}
+     *
+     * @return {@code int} representing number of values
+     */
+    public int size() {
+        return itemCount;
+    }
+
+    /**
+     * Adds given value to the front of the {@code LongDeque},
+     * doubling the array if there is no extra space for it
+     *
+     * @param item given value to add
+     * @throws java.lang.IllegalStateException if {@code LongDeque} already holds the maximal number of values
+     * @see #ensureCapacity(int)
+     */
+    public void addFirst(long item) {
+        ensureCapacity(itemCount + 1);
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        itemCount++;
+    }
+
+    /**
+     * Adds given value to the end of the {@code LongDeque},
+     * doubling the array if there is no extra space for it
+     *
+     * @param item given value to add
+     * @throws java.lang.IllegalStateException if {@code LongDeque} already holds the maximal number of values
+     * @see #ensureCapacity(int)
+     */
+    public void addLast(long item) {
+        ensureCapacity(itemCount + 1);
+        items[(head + itemCount) & (items.length - 1)] = item;
+        itemCount++;
+    }
+
+    /**
+     * Removes and returns the value from the front of the {@code LongDeque},
+     * halving the array if it becomes a quarter full
+     *
+     * @return value that was removed from the {@code LongDeque}
+     * @throws java.util.NoSuchElementException if {@code LongDeque} is already empty
+     * @see #shrinkIfSparse()
+     */
+    public long removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is already empty!");
+        }
+        long item = items[head];
+        head = (head + 1) & (items.length - 1);
+        itemCount--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    /**
+     * Removes and returns the value from the end of the {@code LongDeque},
+     * halving the array if it becomes a quarter full
+     *
+     * @return value that was removed from the {@code LongDeque}
+     * @throws java.util.NoSuchElementException if {@code LongDeque} is already empty
+     * @see #shrinkIfSparse()
+     */
+    public long removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is already empty!");
+        }
+        long item = items[(head + itemCount - 1) & (items.length - 1)];
+        itemCount--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    /**
+     * Gets the primitive iterator for iterating through all values in order from front to end
+     *
+     * @return {@code PrimitiveIterator.OfLong}
+     */
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            /**
+             * Number of values which were already returned
+             */
+            private int cursor;
+
+            /**
+             * Checks if {@code LongDeque} has next value for iterating
+             * @return {@code true} if there are values left for iterating and {@code false} if not
+             */
+            @Override
+            public boolean hasNext() {
+                return cursor < itemCount;
+            }
+
+            /**
+             * Returns next value in order from front to end without boxing
+             * @return next value
+             * @throws java.util.NoSuchElementException if there is no values left
+             */
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("You've already reached the end of deque!");
+                }
+                return items[(head + cursor++) & (items.length - 1)];
+            }
+        };
+    }
+
+    /**
+     * Halves the array if {@code LongDeque} is not empty and uses only a quarter of it
+     *
+     * @see #resize(int)
+     */
+    private void shrinkIfSparse() {
+        if (itemCount > 0 && items.length > MIN_ARRAY_SIZE && itemCount <= items.length >> 2) {
+            resize(items.length >> 1);
+        }
+    }
+
+    /**
+     * Grows the array to the smallest power of two which can hold given number of values,
+     * so the array never exceeds {@link #MAX_ARRAY_SIZE} and its length can not overflow
+     *
+     * @param needed number of values the array should hold
+     * @throws java.lang.IllegalStateException if needed number of values doesn't fit into an array
+     * @see #resize(int)
+     */
+    private void ensureCapacity(int needed) {
+        if (needed < 0 || needed > MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("Deque can not hold that many values!");
+        }
+        if (needed <= items.length) {
+            return;
+        }
+        resize(Integer.highestOneBit(needed - 1) << 1);
+    }
+
+    /**
+     * Moves all values into the new array of given capacity, so the first value
+     * gets position zero. Wrapped array is unrolled with at most two copies
+     *
+     * @param capacity size of the new array, a power of two not less than the number of values
+     * @see java.lang.System#arraycopy(Object, int, Object, int, int)
+     */
+    private void resize(int capacity) {
+        long[] tmpArr = new long[capacity];
+        int firstPart = Math.min(itemCount, items.length - head);
+        System.arraycopy(items, head, tmpArr, 0, firstPart);
+        System.arraycopy(items, 0, tmpArr, firstPart, itemCount - firstPart);
+        items = tmpArr;
+        head = 0;
+    }
+}
@@ -3,8 +3,11 @@ package assignment2;
 import edu.princeton.cs.introcs.StdOut;
 import edu.princeton.cs.introcs.StdRandom;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.StreamSupport;
 
 /**
@@ -144,6 +147,21 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         return new RandomizedQueueIterator<>();
     }
 
+    /**
+     * Returns an independent spliterator over the elements in this {@code RandomizedQueue} in random sequence.
+     * It is backed by a shuffled copy of the items, reports its exact size and splits the copy in halves,
+     * so parallel streams can process the elements on several threads
+     *
+     * @return {@code SIZED}, {@code SUBSIZED} and {@code NONNULL} spliterator over the elements
+     * @see java.util.Spliterators#spliterator(Object[], int, int, int)
+     */
+    @Override
+    public Spliterator<Item> spliterator() {
+        Object[] shuffled = Arrays.copyOf(items, count);
+        StdRandom.shuffle(shuffled);
+        return Spliterators.spliterator(shuffled, 0, count, Spliterator.NONNULL);
+    }
+
     /**
      * Increases or decreases the size of the array with items by given capacity.
      * This method does nothing if capacity is less than the number of items in {@code Deque}
@@ -0,0 +1,304 @@
+package assignment2;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Double-ended queue with the same contract as {@link Deque}, built of fixed-size blocks of
+ * {@link #BLOCK_SIZE} items instead of one big array. Blocks are referenced from the circular
+ * block index with power-of-two length, positions of the items run around all blocks of the index
+ * and are wrapped with a bit mask.
+ * <p>
+ * Items are never moved: adding or removing an item touches one block and at most allocates or
+ * releases one block of fixed size, so it takes constant time. Only when all blocks are full the index
+ * is doubled, which copies n / {@link #BLOCK_SIZE} block references and at most one block of items.
+ * This copy is amortized over the items added since the previous one and is
+ * {@link #BLOCK_SIZE} times smaller than the copy made by {@link Deque}, and there is never
+ * a moment when all items exist in two arrays. The index never shrinks, emptied blocks are released.
+ *
+ * @param <Item> generic type that is stored in {@code SegmentedDeque}
+ * @author Alex Ilyenko
+ * @see Deque
+ * @see java.lang.Iterable
+ */
+public class SegmentedDeque<Item> implements Iterable<Item> {
+    /**
+     * Number of position bits addressing item inside of one block
+     */
+    private static final int BLOCK_SHIFT = 10;
+    /**
+     * Number of items in one block
+     */
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    /**
+     * Mask extracting index of the item inside of its block
+     */
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    /**
+     * Constant holding initial length of the block index, should be a power of two
+     */
+    private static final int MIN_INDEX_SIZE = 2;
+    /**
+     * Constant holding maximal length of the block index, so the capacity stays
+     * a positive power of two and never exceeds {@code 1 << 30} positions
+     */
+    private static final int MAX_INDEX_SIZE = 1 << (30 - BLOCK_SHIFT);
+    /**
+     * Circular block index, its length is always a power of two and
+     * blocks which don't hold any item are {@code null}
+     */
+    private Item[][] blocks;
+    /**
+     * Emptied block kept for reuse, so adding and removing at a block boundary doesn't allocate
+     */
+    private Item[] spare;
+    /**
+     * Position of the first item
+     */
+    private int head;
+    /**
+     * Number of items in {@code SegmentedDeque}
+     */
+    private int itemCount;
+
+    /**
+     * Creates an empty {@code SegmentedDeque}. Default index length is 2,
+     * blocks are allocated when the first items get into them
+     *
+     * @see #MIN_INDEX_SIZE
+     */
+    @SuppressWarnings("unchecked")
+    public SegmentedDeque() {
+        blocks = (Item[][]) new Object[MIN_INDEX_SIZE][];
+    }
+
+    /**
+     * Checks if {@code SegmentedDeque} is empty
+     *
+     * @return {@code true} for empty {@code SegmentedDeque} and
+     * {@code false} if {@code SegmentedDeque} has at least one item
+     */
+    public boolean isEmpty() {
+        return itemCount == 0;
+    }
+
+    /**
+     * Returns the number of items in {@code SegmentedDeque}
+     *
+     * @return {@code int} representing number of items
+     */
+    public int size() {
+        return itemCount;
+    }
+
+    /**
+     * Adds given item to the front of the {@code SegmentedDeque}
+     *
+     * @param item given item to add
+     * @throws java.lang.NullPointerException  if item == {@code null}
+     * @throws java.lang.IllegalStateException if {@code SegmentedDeque} already holds the maximal number of items
+     * @see #grow()
+     * @see #acquire(int)
+     */
+    public void addFirst(Item item) {
+        if (item == null) {
+            throw new NullPointerException("You can not add Null to deque!");
+        }
+        if (itemCount == capacity()) {
+            grow();
+        }
+        head = (head - 1) & (capacity() - 1);
+        acquire(head >>> BLOCK_SHIFT)[head & BLOCK_MASK] = item;
+        itemCount++;
+    }
+
+    /**
+     * Adds given item to the end of the {@code SegmentedDeque}
+     *
+     * @param item given item to add
+     * @throws java.lang.NullPointerException  if item == {@code null}
+     * @throws java.lang.IllegalStateException if {@code SegmentedDeque} already holds the maximal number of items
+     * @see #grow()
+     * @see #acquire(int)
+     */
+    public void addLast(Item item) {
+        if (item == null) {
+            throw new NullPointerException("You can not add Null to deque!");
+        }
+        if (itemCount == capacity()) {
+            grow();
+        }
+        int position = (head + itemCount) & (capacity() - 1);
+        acquire(position >>> BLOCK_SHIFT)[position & BLOCK_MASK] = item;
+        itemCount++;
+    }
+
+    /**
+     * Removes and returns the item from the front of the {@code SegmentedDeque},
+     * releasing its block if it becomes empty
+     *
+     * @return item that was removed from the {@code SegmentedDeque}
+     * @throws java.util.NoSuchElementException if {@code SegmentedDeque} is already empty
+     * @see #releaseIfEmpty(int)
+     */
+    public Item removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is already empty!");
+        }
+        int block = head >>> BLOCK_SHIFT;
+        int offset = head & BLOCK_MASK;
+        Item item = blocks[block][offset];
+        blocks[block][offset] = null;
+        head = (head + 1) & (capacity() - 1);
+        itemCount--;
+        if (offset == BLOCK_MASK) {
+            releaseIfEmpty(block);
+        }
+        return item;
+    }
+
+    /**
+     * Removes and returns the item from the end of the {@code SegmentedDeque},
+     * releasing its block if it becomes empty
+     *
+     * @return item that was removed from the {@code SegmentedDeque}
+     * @throws java.util.NoSuchElementException if {@code SegmentedDeque} is already empty
+     * @see #releaseIfEmpty(int)
+     */
+    public Item removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is already empty!");
+        }
+        int position = (head + itemCount - 1) & (capacity() - 1);
+        int block = position >>> BLOCK_SHIFT;
+        int offset = position & BLOCK_MASK;
+        Item item = blocks[block][offset];
+        blocks[block][offset] = null;
+        itemCount--;
+        if (offset == 0) {
+            releaseIfEmpty(block);
+        }
+        return item;
+    }
+
+    /**
+     * Gets the {@code Iterator} for iterating through all elements in {@code SegmentedDeque}
+     * in order from front to end
+     *
+     * @return {@code Iterator}
+     * @see java.util.Iterator
+     */
+    public Iterator<Item> iterator() {
+        return new Iterator<Item>() {
+            /**
+             * Number of items which were already returned, default is zero
+             */
+            private int cursor;
+
+            /**
+             * Checks if {@code SegmentedDeque} has next item for iterating
+             * @return {@code true} if {@code SegmentedDeque} has left items for iterating and {@code false} if not
+             */
+            @Override
+            public boolean hasNext() {
+                return cursor < itemCount;
+            }
+
+            /**
+             * Returns next item in {@code SegmentedDeque} in order from front to end
+             * @return next item
+             * @throws java.util.NoSuchElementException if there is no elements left in {@code SegmentedDeque}
+             * @see #hasNext()
+             */
+            @Override
+            public Item next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("You've already reached the end of deque!");
+                }
+                int position = (head + cursor++) & (capacity() - 1);
+                return blocks[position >>> BLOCK_SHIFT][position & BLOCK_MASK];
+            }
+
+            /**
+             * Unsupported remove operation
+             * @throws java.lang.UnsupportedOperationException
+             */
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Remove action is not supported!");
+            }
+        };
+    }
+
+    /**
+     * Returns number of positions in all blocks of the index
+     *
+     * @return {@code int} representing capacity, a power of two
+     */
+    private int capacity() {
+        return blocks.length << BLOCK_SHIFT;
+    }
+
+    /**
+     * Returns block with given index, taking the spare block or allocating new one if there is none
+     *
+     * @param block index of the block
+     * @return block with given index
+     */
+    @SuppressWarnings("unchecked")
+    private Item[] acquire(int block) {
+        Item[] items = blocks[block];
+        if (items == null) {
+            items = spare != null ? spare : (Item[]) new Object[BLOCK_SIZE];
+            spare = null;
+            blocks[block] = items;
+        }
+        return items;
+    }
+
+    /**
+     * Releases the block if none of the items belongs to it. Every item of the released block
+     * was already set to {@code null}, so it is kept as the spare one
+     *
+     * @param block index of the block which has just lost its first or last item
+     */
+    private void releaseIfEmpty(int block) {
+        int mask = capacity() - 1;
+        if (itemCount > 0 && (head >>> BLOCK_SHIFT == block
+                || ((head + itemCount - 1) & mask) >>> BLOCK_SHIFT == block)) {
+            return;
+        }
+        spare = blocks[block];
+        blocks[block] = null;
+    }
+
+    /**
+     * Doubles the block index of the full {@code SegmentedDeque}. Block references are unrolled
+     * so the block of the first item gets index zero, items themselves stay in their blocks.
+     * If the last items share the block with the first ones, they are moved into a new block
+     *
+     * @throws java.lang.IllegalStateException if the index already has {@link #MAX_INDEX_SIZE} blocks
+     * @see java.lang.System#arraycopy(Object, int, Object, int, int)
+     */
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        int length = blocks.length;
+        if (length >= MAX_INDEX_SIZE) {
+            throw new IllegalStateException("Deque can not hold that many items!");
+        }
+        Item[][] tmpIndex = (Item[][]) new Object[length << 1][];
+        int first = head >>> BLOCK_SHIFT;
+        System.arraycopy(blocks, first, tmpIndex, 0, length - first);
+        System.arraycopy(blocks, 0, tmpIndex, length - first, first);
+        int offset = head & BLOCK_MASK;
+        if (offset != 0) {
+            Item[] tail = (Item[]) new Object[BLOCK_SIZE];
+            System.arraycopy(tmpIndex[0], 0, tail, 0, offset);
+            Arrays.fill(tmpIndex[0], 0, offset, null);
+            tmpIndex[length] = tail;
+        }
+        blocks = tmpIndex;
+        head = offset;
+    }
+}
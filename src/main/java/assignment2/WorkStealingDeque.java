@@ -0,0 +1,166 @@
+package assignment2;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free work-stealing deque of Chase and Lev, the concurrent sibling of {@link Deque}.
+ * One owner thread adds and removes items at the end with {@link #addLast(Object)} and
+ * {@link #removeLast()}, any number of thief threads take items from the front with {@link #steal()}.
+ * The owner uses CAS only when it competes with thieves for the last item, thieves claim
+ * the front item by CAS on {@link #top}.
+ * <p>
+ * Items are kept in the circular array with power-of-two length indexed by ever-growing
+ * {@code long} positions. When the array is full, the owner copies live items into the array
+ * twice as long and publishes it, thieves which still read the old array see the same items there.
+ * The array never shrinks. Slot of the stolen item keeps its reference until the owner overwrites it.
+ * <p>
+ * Only the owner thread may call {@link #addLast(Object)} and {@link #removeLast()}, this isn't checked.
+ *
+ * @param <Item> generic type that is stored in {@code WorkStealingDeque}
+ * @author Alex Ilyenko
+ * @see Deque
+ * @see AtomicReferenceArray
+ */
+public class WorkStealingDeque<Item> {
+    /**
+     * Constant holding initial array size, should be a power of two
+     */
+    private static final int MIN_ARRAY_SIZE = 16;
+    /**
+     * Position of the front item, incremented by thieves and by the owner taking the last item
+     */
+    private final AtomicLong top = new AtomicLong();
+    /**
+     * Position following the end item, changed only by the owner
+     */
+    private volatile long bottom;
+    /**
+     * Circular array holding all items, its length is always a power of two
+     */
+    private volatile AtomicReferenceArray<Item> items = new AtomicReferenceArray<>(MIN_ARRAY_SIZE);
+
+    /**
+     * Checks if {@code WorkStealingDeque} is empty. Under concurrent
+     * modification the answer may be outdated by the time it is returned
+     *
+     * @return {@code true} for empty {@code WorkStealingDeque} and
+     * {@code false} if it has at least one item
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of items in {@code WorkStealingDeque}. Under concurrent
+     * modification the answer may be outdated by the time it is returned
+     *
+     * @return {@code int} representing number of items
+     */
+    public int size() {
+        long size = bottom - top.get();
+        return size <= 0 ? 0 : (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Adds given item to the end of the {@code WorkStealingDeque}, doubling
+     * the array if there is no extra space for it. Called only by the owner thread
+     *
+     * @param item given item to add
+     * @throws java.lang.NullPointerException if item == {@code null}
+     * @see #grow(AtomicReferenceArray, long, long)
+     */
+    public void addLast(Item item) {
+        if (item == null) {
+            throw new NullPointerException("You can not add Null to deque!");
+        }
+        long b = bottom;
+        long t = top.get();
+        AtomicReferenceArray<Item> array = items;
+        if (b - t >= array.length()) {
+            array = grow(array, t, b);
+        }
+        array.lazySet(index(array, b), item);
+        bottom = b + 1;
+    }
+
+    /**
+     * Removes and returns the item from the end of the {@code WorkStealingDeque}.
+     * Called only by the owner thread, which competes with thieves only for the last item
+     *
+     * @return item that was removed or {@code null} if there were no items left
+     */
+    public Item removeLast() {
+        long b = bottom - 1;
+        AtomicReferenceArray<Item> array = items;
+        bottom = b;
+        long t = top.get();
+        if (t > b) {
+            bottom = t;
+            return null;
+        }
+        int index = index(array, b);
+        Item item = array.get(index);
+        if (t == b) {
+            if (top.compareAndSet(t, t + 1)) {
+                array.lazySet(index, null);
+            } else {
+                item = null;
+            }
+            bottom = t + 1;
+            return item;
+        }
+        array.lazySet(index, null);
+        return item;
+    }
+
+    /**
+     * Removes and returns the item from the front of the {@code WorkStealingDeque}.
+     * Can be called by any thread, attempt lost to another thief or to the owner is retried
+     *
+     * @return item that was removed or {@code null} if there were no items left
+     */
+    public Item steal() {
+        while (true) {
+            long t = top.get();
+            long b = bottom;
+            if (t >= b) {
+                return null;
+            }
+            AtomicReferenceArray<Item> array = items;
+            Item item = array.get(index(array, t));
+            if (top.compareAndSet(t, t + 1)) {
+                return item;
+            }
+        }
+    }
+
+    /**
+     * Copies items at positions [top, bottom) into the array twice as long
+     * and publishes it. Called only by the owner thread
+     *
+     * @param array current array
+     * @param t     position of the front item
+     * @param b     position following the end item
+     * @return new array
+     */
+    private AtomicReferenceArray<Item> grow(AtomicReferenceArray<Item> array, long t, long b) {
+        AtomicReferenceArray<Item> tmpArr = new AtomicReferenceArray<>(array.length() << 1);
+        for (long i = t; i < b; i++) {
+            tmpArr.lazySet(index(tmpArr, i), array.get(index(array, i)));
+        }
+        items = tmpArr;
+        return tmpArr;
+    }
+
+    /**
+     * Converts position into the index of the array
+     *
+     * @param array    array with power-of-two length
+     * @param position position of the item
+     * @return index of the item in the array
+     */
+    private static int index(AtomicReferenceArray<?> array, long position) {
+        return (int) position & (array.length() - 1);
+    }
+}